@@ -0,0 +1,111 @@
+package com.croissant.CroissantClicker.benchmarks;
+
+import com.croissant.CroissantClicker.ClickScheduler;
+import com.croissant.CroissantClicker.ClickerConfig;
+import com.croissant.CroissantClicker.ClickerLogic;
+import com.croissant.CroissantClicker.CountingClickSink;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+//ClickerLogic against a fake sink: wall time of a fixed-length run (achieved rate) plus inter-click jitter,
+//and the raw per-click overhead of the loop body with the waiting removed.
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ClickLoopBenchmark {
+
+    @Param({"50", "250", "1000"})
+    public int cps;
+
+    private ClickerConfig config;
+    private ClickerLogic logic;
+    private RecordingClickSink sink;
+    private int clicksPerRun;
+
+    //jitter accumulated over one measurement iteration
+    private long intervalCount;
+    private long absErrorSum;
+    private long maxAbsError;
+
+    @Setup(Level.Trial)
+    public void setupTrial() {
+        clicksPerRun = Math.max(10, cps / 5); //~200ms per run
+        config = new ClickerConfig();
+        config.setCps(cps);
+        config.setClickLimitMode(true);
+        config.setClickLimit(clicksPerRun);
+        sink = new RecordingClickSink(clicksPerRun);
+        logic = new ClickerLogic(config, sink);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetJitter() {
+        intervalCount = 0;
+        absErrorSum = 0;
+        maxAbsError = 0;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int limitedRun() throws InterruptedException {
+        sink.reset(clicksPerRun);
+        logic.start();
+        sink.await();
+        while (logic.isRunning()) {
+            Thread.onSpinWait();
+        }
+        recordJitter();
+        return sink.getPressCount();
+    }
+
+    private void recordJitter() {
+        long period = 1_000_000_000L / cps;
+        for (int i = 1; i < sink.getPressCount(); i++) {
+            long error = Math.abs((sink.getPressTime(i) - sink.getPressTime(i - 1)) - period);
+            absErrorSum += error;
+            maxAbsError = Math.max(maxAbsError, error);
+            intervalCount++;
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportJitter() {
+        if (intervalCount == 0) return;
+        double expectedRunMs = (clicksPerRun - 1) * 1000.0 / cps;
+        System.out.printf("%n  cps=%d expected run=%.2fms mean |jitter|=%.1fus max |jitter|=%.1fus over %d intervals%n",
+                cps, expectedRunMs, absErrorSum / (double) intervalCount / 1000.0, maxAbsError / 1000.0, intervalCount);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        logic.stop();
+    }
+
+    //loop body without waiting: scheduling math + sink calls + counter
+    @State(Scope.Thread)
+    public static class LoopBodyState {
+        final ClickerConfig config = new ClickerConfig();
+        final CountingClickSink sink = new CountingClickSink();
+        final ClickScheduler scheduler = new ClickScheduler();
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            config.setCps(ClickerConfig.CPS_MAX);
+            scheduler.reset(config.getCps());
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long loopBodyThroughput(LoopBodyState state) {
+        int mouseButton = state.config.getMouseButton();
+        state.sink.press(mouseButton);
+        state.sink.release(mouseButton);
+        state.config.incrementClickCount();
+        return state.scheduler.advance(state.config.getCps());
+    }
+}
@@ -0,0 +1,71 @@
+package com.croissant.CroissantClicker.benchmarks;
+
+import com.croissant.CroissantClicker.ClickerConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.event.InputEvent;
+import java.util.concurrent.TimeUnit;
+
+//ClickerConfig setters and the PropertyChangeSupport fan-out they trigger, by number of registered listeners
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConfigEventsBenchmark {
+
+    @Param({"0", "1", "4", "16"})
+    public int listeners;
+
+    private ClickerConfig config;
+    private boolean toggle;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) {
+        config = new ClickerConfig();
+        for (int i = 0; i < listeners; i++) {
+            config.addPropertyChangeListener(blackhole::consume);
+        }
+    }
+
+    //every call changes the value so an event is always fired
+    @Benchmark
+    public int setCps() {
+        toggle = !toggle;
+        config.setCps(toggle ? 10 : 20);
+        return config.getCps();
+    }
+
+    @Benchmark
+    public int setMouseButton() {
+        toggle = !toggle;
+        config.setMouseButton(toggle ? InputEvent.BUTTON1_DOWN_MASK : InputEvent.BUTTON3_DOWN_MASK);
+        return config.getMouseButton();
+    }
+
+    //unchanged value: early-out path, no event
+    @Benchmark
+    public int setCpsUnchanged() {
+        config.setCps(10);
+        return config.getCps();
+    }
+
+    //reset button: five setters in a row
+    @Benchmark
+    public int setDefaultConfig() {
+        toggle = !toggle;
+        config.setCps(toggle ? 10 : 20);
+        config.setTheme(toggle ? "Light" : "Dark");
+        config.setDefaultConfig();
+        return config.getCps();
+    }
+
+    @Benchmark
+    public int setEnabled() {
+        toggle = !toggle;
+        config.setEnabled(toggle);
+        return toggle ? 1 : 0;
+    }
+}
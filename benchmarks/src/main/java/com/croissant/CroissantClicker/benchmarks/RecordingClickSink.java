@@ -0,0 +1,51 @@
+package com.croissant.CroissantClicker.benchmarks;
+
+import com.croissant.CroissantClicker.ClickSink;
+
+import java.util.concurrent.CountDownLatch;
+
+//fake output that timestamps every press so inter-click jitter can be computed after a run
+public class RecordingClickSink implements ClickSink {
+
+    private final long[] pressTimes;
+    private int pressCount;
+    private CountDownLatch done;
+
+    public RecordingClickSink(int capacity) {
+        this.pressTimes = new long[capacity];
+    }
+
+    public void reset(int expectedClicks) {
+        pressCount = 0;
+        done = new CountDownLatch(expectedClicks);
+    }
+
+    public void await() throws InterruptedException {
+        done.await();
+    }
+
+    @Override
+    public void press(int mouseButton) {
+        if (pressCount < pressTimes.length) {
+            pressTimes[pressCount++] = System.nanoTime();
+        }
+        done.countDown();
+    }
+
+    @Override
+    public void release(int mouseButton) {
+    }
+
+    public int getPressCount() {
+        return pressCount;
+    }
+
+    public long getPressTime(int index) {
+        return pressTimes[index];
+    }
+
+    @Override
+    public String getName() {
+        return "recording";
+    }
+}
@@ -0,0 +1,78 @@
+package com.croissant.CroissantClicker.benchmarks;
+
+import com.croissant.CroissantClicker.ClickerConfig;
+import com.croissant.CroissantClicker.SaveDataManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+//template persistence on save directories of different sizes.
+//each param combination runs in its own fork, so the save directory and storage engine properties are set once per JVM.
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SaveDataManagerBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    public int templates;
+
+    @Param({"properties", "binary"})
+    public String storage;
+
+    private Path saveDir;
+    private ClickerConfig config;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        saveDir = Files.createTempDirectory("croissant-bench");
+        System.setProperty(SaveDataManager.SAVE_DIR_PROPERTY, saveDir.toString());
+        System.setProperty(SaveDataManager.STORAGE_PROPERTY, storage);
+
+        config = new ClickerConfig();
+        for (int i = 0; i < templates; i++) {
+            config.setCps(ClickerConfig.CPS_MIN + i % ClickerConfig.CPS_MAX);
+            SaveDataManager.save(config, "template" + i);
+        }
+        SaveDataManager.save(config, "bench");
+    }
+
+    @Benchmark
+    public ClickerConfig save() {
+        SaveDataManager.save(config, "bench");
+        return config;
+    }
+
+    @Benchmark
+    public ClickerConfig load() {
+        SaveDataManager.load(config, "bench");
+        return config;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<String> loadAllConfigTemplateNames() {
+        return SaveDataManager.loadAllConfigTemplateNames();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public List<String> getConfigTemplateNames() {
+        return SaveDataManager.getConfigTemplateNames();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(saveDir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.croissant.CroissantClicker;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+//write-behind autosave: config changes only mark the save dirty; one background write per window coalesces them.
+//callers (EDT, click thread) never touch the disk. pending changes are flushed on shutdown.
+public class AutoSaver {
+
+    //coalescing window: -Dcroissant.autosave.windowMs=500
+    public static final String WINDOW_PROPERTY = "croissant.autosave.windowMs";
+    public static final long WINDOW_DEFAULT_MS = 500;
+
+    private final ClickerConfig config;
+    private final String configName;
+    private final long windowMs;
+    private final ScheduledThreadPoolExecutor executor;
+    //set by every requestSave (volatile write), cleared by the writer (volatile read) before it reads the config,
+    //so the writer always sees every config change made before the latest request
+    private final AtomicBoolean pending = new AtomicBoolean(false);
+
+    public AutoSaver(ClickerConfig config, String configName) {
+        this(config, configName, Long.getLong(WINDOW_PROPERTY, WINDOW_DEFAULT_MS));
+    }
+
+    public AutoSaver(ClickerConfig config, String configName, long windowMs) {
+        this.config = config;
+        this.configName = configName;
+        this.windowMs = Math.max(0, windowMs);
+
+        executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+            thread.setName("autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        //shutdown flushes synchronously instead of waiting for a scheduled window to elapse
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    //cheap and non-blocking: at most one write is scheduled per window no matter how many changes arrive
+    public void requestSave() {
+        SaveDataManager.autosaveQueued();
+        if (!pending.getAndSet(true) && !executor.isShutdown()) {
+            executor.schedule(this::writeIfPending, windowMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void writeIfPending() {
+        if (pending.getAndSet(false)) {
+            SaveDataManager.autosaveDrained();
+            SaveDataManager.save(config, configName);
+        }
+    }
+
+    //register as shutdown hook so a change made just before exit is not lost
+    public void installShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "autosave-flush"));
+    }
+
+    //stop the background writer and write any pending change on the calling thread
+    public void flush() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS); //let an in-progress write finish
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeIfPending();
+    }
+}
@@ -0,0 +1,162 @@
+package com.croissant.CroissantClicker;
+
+import java.util.concurrent.locks.LockSupport;
+
+//fires bursts of N clicks at a fixed sub-millisecond spacing, optionally repeating after a cooldown.
+//each burst is planned up front as an array of absolute nanoTime deadlines and executed by a spin-wait on a
+//dedicated thread (parking has ~50us+ wakeup jitter, far too coarse for 20-500us gaps; only gaps over 1ms park
+//first). the thread parks through cooldowns and while idle. after every burst the achieved spacing is measured
+//from the actual press times.
+public class BurstEngine {
+
+    private static final long NANOS_PER_MICRO = 1_000L;
+    //waits longer than this (cooldowns, slow spacings) are parked first, the last stretch is spun
+    private static final long SPIN_THRESHOLD_NANOS = 1_000_000L;
+
+    //achieved spacing of one burst (all times in nanos)
+    public record Report(int clicks, long targetSpacing, double meanSpacing, long minSpacing, long maxSpacing,
+                         long maxLateness) {
+        @Override
+        public String toString() {
+            return String.format("burst of %d: spacing target %.1fus, achieved mean %.1fus min %.1fus max %.1fus, worst lateness %.1fus",
+                    clicks, targetSpacing / 1e3, meanSpacing / 1e3, minSpacing / 1e3, maxSpacing / 1e3, maxLateness / 1e3);
+        }
+    }
+
+    private final ClickSink sink;
+    private final ClickerConfig config;
+    //gap between consecutive presses, over all bursts since the last reset
+    private final LatencyHistogram spacingHistogram = new LatencyHistogram("burst spacing");
+    //burst thread only: planned deadlines and actual press times, sized for the largest burst
+    private final long[] deadlines = new long[ClickerConfig.BURST_COUNT_MAX];
+    private final long[] pressTimes = new long[ClickerConfig.BURST_COUNT_MAX];
+
+    private volatile boolean running = false;
+    private volatile long runId = 0;
+    private volatile Report lastReport;
+    private Thread thread;
+
+    public BurstEngine(ClickSink sink, ClickerConfig config) {
+        this.sink = sink;
+        this.config = config;
+    }
+
+    public LatencyHistogram getSpacingHistogram() {
+        return spacingHistogram;
+    }
+
+    public Report getLastReport() {
+        return lastReport;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    //burst hotkey: starts a burst (or the repeating series), a second press stops a repeating series
+    public synchronized void trigger() {
+        if (running) {
+            if (config.getBurstCooldownMillis() > 0) stop();
+            return; //single burst already in flight: ignore
+        }
+        runId++;
+        running = true;
+        if (thread == null) {
+            thread = new Thread(this::workerLoop, "burst");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MAX_PRIORITY);
+            thread.start();
+        }
+        LockSupport.unpark(thread);
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) LockSupport.unpark(thread);
+    }
+
+    private void workerLoop() {
+        while (true) {
+            while (!running) {
+                LockSupport.park(this);
+            }
+            long run = runId;
+
+            //repeat after the cooldown until stopped, or fire once
+            while (isCurrentRun(run)) {
+                ClickerConfig.Snapshot settings = config.getSnapshot();
+                fireBurst(settings, run);
+                if (settings.burstCooldownMillis() <= 0) break;
+                if (!awaitWhileRunning(System.nanoTime() + settings.burstCooldownMillis() * 1_000_000L, run)) break;
+            }
+            synchronized (this) {
+                if (runId == run) running = false;
+            }
+        }
+    }
+
+    private void fireBurst(ClickerConfig.Snapshot settings, long run) {
+        int count = Math.min(settings.burstCount(), deadlines.length);
+        long spacing = settings.burstSpacingMicros() * NANOS_PER_MICRO;
+        int mouseButton = settings.mouseButton();
+
+        //plan: absolute deadlines, so time spent in the sink never shifts later clicks
+        long origin = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            deadlines[i] = origin + i * spacing;
+        }
+
+        int fired = 0;
+        for (int i = 0; i < count; i++) {
+            //sub-millisecond gaps are spun all the way; only longer gaps park first
+            if (!awaitWhileRunning(deadlines[i], run)) break;
+
+            pressTimes[i] = System.nanoTime();
+            sink.press(mouseButton);
+            sink.release(mouseButton);
+            config.incrementClickCount();
+            fired++;
+        }
+        report(fired, spacing);
+    }
+
+    private void report(int fired, long targetSpacing) {
+        if (fired == 0) return;
+
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        long maxLateness = 0;
+        for (int i = 0; i < fired; i++) {
+            maxLateness = Math.max(maxLateness, pressTimes[i] - deadlines[i]);
+            if (i > 0) {
+                long gap = pressTimes[i] - pressTimes[i - 1];
+                spacingHistogram.record(gap);
+                min = Math.min(min, gap);
+                max = Math.max(max, gap);
+            }
+        }
+        double mean = fired > 1 ? (pressTimes[fired - 1] - pressTimes[0]) / (double) (fired - 1) : 0;
+        lastReport = new Report(fired, targetSpacing, mean, fired > 1 ? min : 0, max, maxLateness);
+
+        if (Boolean.getBoolean(ClickerLogic.DUMP_HISTOGRAM_PROPERTY)) {
+            System.out.println(lastReport);
+        }
+    }
+
+    private boolean isCurrentRun(long run) {
+        return running && runId == run;
+    }
+
+    private boolean awaitWhileRunning(long deadline, long run) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > SPIN_THRESHOLD_NANOS) {
+            LockSupport.parkNanos(this, remaining - SPIN_THRESHOLD_NANOS);
+            if (!isCurrentRun(run)) return false;
+        }
+        while (deadline - System.nanoTime() > 0) {
+            if (!isCurrentRun(run)) return false;
+            Thread.onSpinWait();
+        }
+        return isCurrentRun(run);
+    }
+}
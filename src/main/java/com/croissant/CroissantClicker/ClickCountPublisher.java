@@ -0,0 +1,121 @@
+package com.croissant.CroissantClicker;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+//publishes the click counters to the UI at a bounded rate, and only when they changed.
+//the click threads just bump a LongAdder; this daemon samples it and hands one small update to the listener
+//through the delivery executor (SwingUtilities::invokeLater for the EDT). while the clicker is off it parks and
+//costs nothing. at most one update is in flight, so a busy EDT never builds up a queue.
+public class ClickCountPublisher {
+
+    //max updates per second: -Dcroissant.counter.refreshHz=20
+    public static final String REFRESH_HZ_PROPERTY = "croissant.counter.refreshHz";
+    public static final int REFRESH_HZ_DEFAULT = 20;
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    //clicks this run, clicks this session and the current rate (clicks over the last second; run average once stopped)
+    public record Update(long runClicks, long sessionClicks, double cps) {}
+
+    private final ClickerConfig config;
+    private final Executor deliveryExecutor;
+    private final Consumer<Update> listener;
+    private final long periodNanos;
+    private final AtomicBoolean delivering = new AtomicBoolean(false);
+    //~1 second of (time, count) samples for the rate, publisher thread only
+    private final long[] sampleTimes;
+    private final long[] sampleCounts;
+    private int sampleIndex;
+    private int sampleCount;
+    private long lastPublishedCount = -1;
+
+    private volatile boolean active = false;
+    private volatile long runStartNanos;
+    private Thread thread;
+
+    public ClickCountPublisher(ClickerConfig config, Executor deliveryExecutor, Consumer<Update> listener) {
+        this(config, deliveryExecutor, listener, Integer.getInteger(REFRESH_HZ_PROPERTY, REFRESH_HZ_DEFAULT));
+    }
+
+    public ClickCountPublisher(ClickerConfig config, Executor deliveryExecutor, Consumer<Update> listener, int refreshHz) {
+        this.config = config;
+        this.deliveryExecutor = deliveryExecutor;
+        this.listener = listener;
+        int hz = Math.max(1, Math.min(refreshHz, 240));
+        this.periodNanos = NANOS_PER_SECOND / hz;
+        sampleTimes = new long[hz + 1];
+        sampleCounts = new long[hz + 1];
+    }
+
+    //begin publishing for a new run
+    public synchronized void start() {
+        runStartNanos = System.nanoTime();
+        active = true;
+        if (thread == null) {
+            thread = new Thread(this::run, "click-count-publisher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        LockSupport.unpark(thread);
+    }
+
+    //stop publishing; call current() for the final numbers
+    public void stop() {
+        active = false;
+    }
+
+    //counters right now, with the run's average rate
+    public Update current() {
+        long clicks = config.getClickCount();
+        long elapsed = System.nanoTime() - runStartNanos;
+        double cps = clicks > 0 && elapsed > 0 ? clicks * (double) NANOS_PER_SECOND / elapsed : 0;
+        return new Update(clicks, config.getSessionClickCount(), cps);
+    }
+
+    private void run() {
+        while (true) {
+            if (!active) {
+                sampleCount = 0;
+                sampleIndex = 0;
+                lastPublishedCount = -1;
+                LockSupport.park(this);
+                continue;
+            }
+
+            long now = System.nanoTime();
+            long clicks = config.getClickCount();
+            double cps = sample(now, clicks);
+            //unchanged count: don't wake the EDT at all
+            if (clicks != lastPublishedCount && delivering.compareAndSet(false, true)) {
+                lastPublishedCount = clicks;
+                Update update = new Update(clicks, config.getSessionClickCount(), cps);
+                deliveryExecutor.execute(() -> {
+                    try {
+                        listener.accept(update);
+                    } finally {
+                        delivering.set(false);
+                    }
+                });
+            }
+            LockSupport.parkNanos(this, periodNanos);
+        }
+    }
+
+    //add a sample to the ring and return the rate over the window it covers
+    private double sample(long now, long clicks) {
+        int oldest = sampleCount < sampleTimes.length ? 0 : sampleIndex;
+        long oldestTime = sampleCount == 0 ? now : sampleTimes[oldest];
+        long oldestCount = sampleCount == 0 ? clicks : sampleCounts[oldest];
+
+        sampleTimes[sampleIndex] = now;
+        sampleCounts[sampleIndex] = clicks;
+        sampleIndex = (sampleIndex + 1) % sampleTimes.length;
+        if (sampleCount < sampleTimes.length) sampleCount++;
+
+        long elapsed = now - oldestTime;
+        if (elapsed <= 0) return 0;
+        return (clicks - oldestCount) * (double) NANOS_PER_SECOND / elapsed;
+    }
+}
@@ -0,0 +1,242 @@
+package com.croissant.CroissantClicker;
+
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+//runs any number of click jobs from one scheduler thread.
+//jobs sit in a priority queue ordered by their next absolute deadline; the thread parks until the earliest one
+//(spinning the final stretch like ClickScheduler) and parks indefinitely when there is nothing to do.
+//each job keeps its own deadline series, so its rate stays honest regardless of what else is running.
+//blocking follow-up work (completion callbacks) runs on virtual threads, never on the timing thread.
+public class ClickEngine implements AutoCloseable {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final long SPIN_THRESHOLD_NANOS = 1_000_000L;
+    private static final long MIN_LAG_NANOS = 20_000_000L;
+
+    private final ClickSink sink;
+    private final ClickerConfig config; //optional: clicks are also counted in config.incrementClickCount
+    private final ExecutorService blockingExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    //submissions/cancellations from other threads, drained by the engine thread
+    private final ConcurrentLinkedQueue<Job> incoming = new ConcurrentLinkedQueue<>();
+    //engine thread only
+    private final PriorityQueue<Job> queue = new PriorityQueue<>((a, b) -> Long.compare(a.nextDeadline, b.nextDeadline));
+    private volatile int activeJobCount = 0;
+    private volatile boolean shutdown = false;
+    private Thread engineThread;
+
+    public ClickEngine(ClickSink sink) {
+        this(sink, null);
+    }
+
+    public ClickEngine(ClickSink sink, ClickerConfig config) {
+        this.sink = sink;
+        this.config = config;
+    }
+
+    //schedule a job; its first click fires immediately
+    public synchronized Job submit(ClickJob definition) {
+        if (shutdown) {
+            throw new IllegalStateException("click engine is shut down");
+        }
+        if (engineThread == null) {
+            engineThread = new Thread(this::run, "click-engine");
+            engineThread.setDaemon(true);
+            engineThread.start();
+        }
+
+        Job job = new Job(definition);
+        incoming.add(job);
+        LockSupport.unpark(engineThread);
+        return job;
+    }
+
+    public int getActiveJobCount() {
+        return activeJobCount;
+    }
+
+    private void run() {
+        while (!shutdown) {
+            drainIncoming();
+
+            Job next = queue.peek();
+            if (next == null) {
+                LockSupport.park(this); //idle: no CPU until the next submit
+                continue;
+            }
+            if (next.cancelled) {
+                queue.poll();
+                finish(next);
+                continue;
+            }
+
+            long remaining = next.nextDeadline - System.nanoTime();
+            if (remaining > SPIN_THRESHOLD_NANOS) {
+                //coarse wait; a submit/cancel unparks us early so the queue head is re-evaluated
+                LockSupport.parkNanos(this, remaining - SPIN_THRESHOLD_NANOS);
+                continue;
+            }
+            while (next.nextDeadline - System.nanoTime() > 0 && !next.cancelled) {
+                Thread.onSpinWait();
+            }
+
+            queue.poll();
+            //cancelled while spinning: the click it was waiting for must not fire
+            if (next.cancelled) {
+                finish(next);
+                continue;
+            }
+            click(next);
+            if (next.done()) {
+                finish(next);
+            } else {
+                next.advance();
+                queue.add(next);
+            }
+        }
+
+        //shutdown: release everything still queued
+        drainIncoming();
+        Job job;
+        while ((job = queue.poll()) != null) {
+            job.cancelled = true;
+            finish(job);
+        }
+    }
+
+    private void drainIncoming() {
+        Job job;
+        while ((job = incoming.poll()) != null) {
+            job.start(System.nanoTime());
+            queue.add(job);
+            activeJobCount++;
+        }
+    }
+
+    private void click(Job job) {
+        ClickJob definition = job.definition;
+        if (definition.positioned()) {
+            sink.moveTo(definition.x(), definition.y());
+        }
+        sink.press(definition.mouseButton());
+        sink.release(definition.mouseButton());
+        job.clickCount++;
+        if (config != null) {
+            config.incrementClickCount();
+        }
+    }
+
+    private void finish(Job job) {
+        activeJobCount--;
+        job.finishedNanos = System.nanoTime();
+        //complete on a virtual thread so dependent callbacks can block without stalling other jobs.
+        //close() shuts the executor down after the engine thread is joined, but the join is bounded: a job
+        //finished after that completes on this thread instead
+        try {
+            job.completion.completeAsync(() -> job, blockingExecutor);
+        } catch (RejectedExecutionException e) {
+            job.completion.complete(job);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            shutdown = true;
+            if (engineThread != null) {
+                LockSupport.unpark(engineThread);
+            }
+        }
+        if (engineThread != null) {
+            try {
+                engineThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        blockingExecutor.shutdown();
+    }
+
+    //handle to a running job. counters are written by the engine thread only
+    public final class Job {
+        private final ClickJob definition;
+        private final CompletableFuture<Job> completion = new CompletableFuture<>();
+        private volatile boolean cancelled = false;
+        private volatile long clickCount = 0;
+        private volatile long startedNanos;
+        private volatile long finishedNanos;
+        //deadline series, engine thread only
+        private long origin;
+        private long tick;
+        private long nextDeadline;
+
+        private Job(ClickJob definition) {
+            this.definition = definition;
+        }
+
+        private void start(long now) {
+            startedNanos = now;
+            origin = now;
+            tick = 0;
+            nextDeadline = now;
+        }
+
+        private void advance() {
+            tick++;
+            nextDeadline = origin + ClickScheduler.deadlineOffset(tick, definition.cps());
+
+            //engine overloaded: drop this job's backlog instead of bursting
+            long now = System.nanoTime();
+            if (now - nextDeadline > Math.max(2 * (NANOS_PER_SECOND / definition.cps()), MIN_LAG_NANOS)) {
+                origin = now;
+                tick = 0;
+                nextDeadline = now;
+            }
+        }
+
+        private boolean done() {
+            return cancelled || (definition.clickLimit() > 0 && clickCount >= definition.clickLimit());
+        }
+
+        public ClickJob getDefinition() {
+            return definition;
+        }
+
+        public long getClickCount() {
+            return clickCount;
+        }
+
+        public boolean isDone() {
+            return completion.isDone();
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        //delivered rate since the job started
+        public double getAchievedCps() {
+            long end = isDone() ? finishedNanos : System.nanoTime();
+            long elapsed = end - startedNanos;
+            long clicks = clickCount;
+            if (clicks < 2 || elapsed <= 0) return 0;
+            return (clicks - 1) * (double) NANOS_PER_SECOND / elapsed;
+        }
+
+        public CompletableFuture<Job> onCompletion() {
+            return completion;
+        }
+
+        //no effect on a job that already finished
+        public void cancel() {
+            if (completion.isDone()) return;
+            cancelled = true;
+            LockSupport.unpark(engineThread);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.croissant.CroissantClicker;
+
+//definition of one click job for ClickEngine: button, rate, optional limit and optional fixed screen position
+public record ClickJob(String name,
+                       int mouseButton, //InputEvent button mask
+                       int cps,
+                       int clickLimit, //0 = unlimited
+                       boolean positioned, //move to (x, y) before every click, otherwise click wherever the cursor is
+                       int x,
+                       int y) {
+
+    public ClickJob {
+        if (cps < ClickerConfig.CPS_MIN || cps > ClickerConfig.CPS_MAX) {
+            throw new IllegalArgumentException("cps must be between " + ClickerConfig.CPS_MIN + " and " + ClickerConfig.CPS_MAX);
+        }
+        if (clickLimit < 0) {
+            throw new IllegalArgumentException("clickLimit must be >= 0");
+        }
+    }
+
+    public static ClickJob atCursor(String name, int mouseButton, int cps, int clickLimit) {
+        return new ClickJob(name, mouseButton, cps, clickLimit, false, 0, 0);
+    }
+
+    public static ClickJob atPosition(String name, int mouseButton, int cps, int clickLimit, int x, int y) {
+        return new ClickJob(name, mouseButton, cps, clickLimit, true, x, y);
+    }
+}
@@ -0,0 +1,145 @@
+package com.croissant.CroissantClicker;
+
+import java.util.concurrent.locks.LockSupport;
+
+//paces clicks from absolute System.nanoTime() deadlines instead of relative sleeps.
+//deadline n is origin + n * 1e9 / cps, so rounding, time spent clicking and sleep overshoot never accumulate.
+public class ClickScheduler {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    //last stretch before a deadline is spun instead of slept (sleep/park overshoot is typically 50us - 2ms)
+    private static final long DEFAULT_SPIN_THRESHOLD_NANOS = 2_000_000L;
+    //if we fall this far behind (machine stalled), resync instead of bursting to catch up. the floor keeps the
+    //threshold above timer/spin noise at the highest rates.
+    private static final int MAX_LAG_PERIODS = 2;
+    private static final long MIN_LAG_NANOS = 1_000_000L;
+    //a smaller lag is caught up, but while behind a click waits at least this share of a period after the last one:
+    //the missed ticks are made up over the following clicks instead of firing back-to-back
+    private static final double CATCH_UP_GAP = 0.5;
+
+    private final long spinThresholdNanos;
+
+    private int cps;
+    private long origin; //nanoTime of tick 0 for the current rate
+    private long tick; //ticks scheduled since origin
+    private long scheduled; //where the schedule says the next click belongs
+    private long nextDeadline; //when it fires: scheduled, or later while catching up
+    private long lastFired; //start of the last click, when reported (never before its deadline)
+    private boolean behind; //the last advance found the schedule lagging (catching up or resynced)
+    private long resyncs;
+
+    public ClickScheduler() {
+        this(DEFAULT_SPIN_THRESHOLD_NANOS);
+    }
+
+    public ClickScheduler(long spinThresholdNanos) {
+        this.spinThresholdNanos = spinThresholdNanos;
+    }
+
+    //start a new schedule: the first deadline is now (first click fires immediately)
+    public void reset(int cps) {
+        this.cps = cps;
+        this.origin = System.nanoTime();
+        this.tick = 0;
+        this.scheduled = origin;
+        this.nextDeadline = origin;
+        this.lastFired = origin;
+        this.behind = false;
+    }
+
+    public long getSpinThresholdNanos() {
+        return spinThresholdNanos;
+    }
+
+    public long getNextDeadline() {
+        return nextDeadline;
+    }
+
+    //true while the schedule lags: the next deadline is a spaced-out catch-up tick or the first after a resync
+    public boolean isBehind() {
+        return behind;
+    }
+
+    //times the backlog was dropped since this scheduler was created
+    public long getResyncs() {
+        return resyncs;
+    }
+
+    //report when the click for the current deadline actually started, so catch-up clicks are spaced from it.
+    //awaitDeadline() reports on its own; callers with their own wait loop call this
+    public void fired(long startNanos) {
+        lastFired = startNanos;
+    }
+
+    //advance to the next deadline; a cps change rebases the schedule on the last deadline so no jump occurs
+    public long advance(int cps) {
+        long previous = scheduled;
+        if (cps != this.cps) {
+            this.cps = cps;
+            this.origin = scheduled;
+            this.tick = 0;
+        }
+        tick++;
+        scheduled = origin + deadlineOffset(tick, cps);
+        pace(previous, NANOS_PER_SECOND / cps);
+        return nextDeadline;
+    }
+
+    //advance by an explicit gap (randomized timing); still absolute, each deadline builds on the previous one.
+    //the next advance(cps) continues from this deadline
+    public long advanceBy(long intervalNanos) {
+        long previous = scheduled;
+        origin = scheduled + intervalNanos;
+        tick = 0;
+        scheduled = origin;
+        pace(previous, intervalNanos);
+        return nextDeadline;
+    }
+
+    //never a burst of late clicks: fell far behind (machine stalled) -> drop the backlog and continue a period from
+    //now; a little behind -> keep the schedule, but fire no sooner than CATCH_UP_GAP periods after the last click
+    private void pace(long previousScheduled, long periodNanos) {
+        long now = System.nanoTime();
+        long fired = Math.max(lastFired, nextDeadline); //unreported: assume it fired on its deadline
+        long lag = now - scheduled;
+        if (lag > Math.max(MAX_LAG_PERIODS * periodNanos, MIN_LAG_NANOS)) {
+            origin = now + periodNanos;
+            tick = 0;
+            scheduled = origin;
+            nextDeadline = origin;
+            behind = true;
+            resyncs++;
+            return;
+        }
+        long gap = (long) (periodNanos * CATCH_UP_GAP);
+        behind = lag > 0 || fired - previousScheduled > gap;
+        nextDeadline = behind ? Math.max(scheduled, fired + gap) : scheduled;
+    }
+
+    //block until the current deadline: coarse park while far away, then spin for the final stretch
+    public void awaitDeadline() throws InterruptedException {
+        awaitDeadline(nextDeadline, spinThresholdNanos);
+        lastFired = System.nanoTime();
+    }
+
+    public static void awaitDeadline(long deadline, long spinThresholdNanos) throws InterruptedException {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > spinThresholdNanos) {
+            LockSupport.parkNanos(remaining - spinThresholdNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        while (deadline - System.nanoTime() > 0) {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    //exact offset of tick n at the given rate, computed without accumulating rounding error
+    static long deadlineOffset(long tick, int cps) {
+        return (tick / cps) * NANOS_PER_SECOND + ((tick % cps) * NANOS_PER_SECOND) / cps;
+    }
+}
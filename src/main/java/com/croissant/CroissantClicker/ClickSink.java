@@ -0,0 +1,28 @@
+package com.croissant.CroissantClicker;
+
+//output backend the click loop injects presses/releases into.
+//buttons are java.awt.event.InputEvent button masks (BUTTON1_DOWN_MASK etc.)
+public interface ClickSink extends AutoCloseable {
+
+    void press(int mouseButton);
+
+    void release(int mouseButton);
+
+    //absolute cursor move, for jobs pinned to a screen position. backends without absolute positioning ignore it
+    default void moveTo(int x, int y) {
+    }
+
+    //keyboard output for macro replay (java.awt.event.KeyEvent VK_ codes). mouse-only backends ignore it
+    default void keyPress(int keyCode) {
+    }
+
+    default void keyRelease(int keyCode) {
+    }
+
+    //name shown in logs/settings
+    String getName();
+
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,54 @@
+package com.croissant.CroissantClicker;
+
+import java.awt.*;
+import java.io.IOException;
+
+//creates click output backends by name. selected with -Dcroissant.clickSink=auto|robot|uinput|counting
+public class ClickSinks {
+
+    public static final String SINK_PROPERTY = "croissant.clickSink";
+    public static final String SINK_DEFAULT = "auto";
+
+    public static ClickSink createDefault() throws AWTException {
+        return create(System.getProperty(SINK_PROPERTY, SINK_DEFAULT));
+    }
+
+    public static ClickSink create(String name) throws AWTException {
+        switch (name) {
+            case "robot":
+            case "robot-tuned": //old name, Robot's defaults already were the tuned settings
+                return new RobotClickSink();
+            case "counting":
+                return new CountingClickSink();
+            case "uinput":
+                try {
+                    return withRobotPointer(new UinputClickSink());
+                } catch (IOException | LinkageError e) {
+                    System.err.println("uinput backend unavailable, falling back to robot: " + e.getMessage());
+                    return new RobotClickSink();
+                }
+            case "auto":
+                return createFastest();
+            default:
+                System.err.println("Unknown click sink \"" + name + "\", using robot");
+                return new RobotClickSink();
+        }
+    }
+
+    //fastest path available on this host: kernel injection on Linux when permitted, otherwise Robot
+    private static ClickSink createFastest() throws AWTException {
+        if (System.getProperty("os.name").toLowerCase().contains("linux")) {
+            try {
+                return withRobotPointer(new UinputClickSink());
+            } catch (IOException | RuntimeException | LinkageError _) {
+                //no access to /dev/uinput: expected for most desktop users
+            }
+        }
+        return new RobotClickSink();
+    }
+
+    //uinput only clicks: cursor moves (positioned jobs, macros) and keys go through Robot, created on first use
+    private static ClickSink withRobotPointer(ClickSink buttons) {
+        return new SplitClickSink(buttons, RobotClickSink::new);
+    }
+}
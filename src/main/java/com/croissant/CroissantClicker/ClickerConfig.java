@@ -1,42 +1,120 @@
 package com.croissant.CroissantClicker;
 
-import com.github.kwhat.jnativehook.keyboard.NativeKeyEvent;
 import java.awt.event.InputEvent;
 import java.beans.PropertyChangeListener;
 import java.beans.PropertyChangeSupport;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
 import java.util.Objects;
 
 
 public class ClickerConfig {
 
+    //immutable view of the user selected options. every setter publishes a new one through a single atomic
+    //reference, so the click thread reads one consistent set of values per tick with a single volatile load.
+    public record Snapshot(int mouseButton, //mouse button
+                           int cps, //clicks/sec
+                           boolean clickLimitMode, //infinite or finite run mode
+                           int clickLimit, //num mouse clicks run when turned on
+                           String theme,
+                           TimingMode timingMode, //distribution of the gaps between clicks
+                           int timingJitter, //% of the mean interval (gaussian std dev / uniform half width)
+                           int holdMillis, //mean time the button is held down, 0 = immediate release
+                           int holdJitter, //% of holdMillis (gaussian std dev)
+                           int burstCount, //clicks per burst
+                           int burstSpacingMicros, //gap between the clicks of a burst
+                           int burstCooldownMillis) { //pause before the burst repeats, 0 = single burst
+
+        Snapshot withMouseButton(int mouseButton) {
+            return new Snapshot(mouseButton, cps, clickLimitMode, clickLimit, theme, timingMode, timingJitter, holdMillis, holdJitter, burstCount, burstSpacingMicros, burstCooldownMillis);
+        }
+        Snapshot withCps(int cps) {
+            return new Snapshot(mouseButton, cps, clickLimitMode, clickLimit, theme, timingMode, timingJitter, holdMillis, holdJitter, burstCount, burstSpacingMicros, burstCooldownMillis);
+        }
+        Snapshot withClickLimitMode(boolean clickLimitMode) {
+            return new Snapshot(mouseButton, cps, clickLimitMode, clickLimit, theme, timingMode, timingJitter, holdMillis, holdJitter, burstCount, burstSpacingMicros, burstCooldownMillis);
+        }
+        Snapshot withClickLimit(int clickLimit) {
+            return new Snapshot(mouseButton, cps, clickLimitMode, clickLimit, theme, timingMode, timingJitter, holdMillis, holdJitter, burstCount, burstSpacingMicros, burstCooldownMillis);
+        }
+        Snapshot withTheme(String theme) {
+            return new Snapshot(mouseButton, cps, clickLimitMode, clickLimit, theme, timingMode, timingJitter, holdMillis, holdJitter, burstCount, burstSpacingMicros, burstCooldownMillis);
+        }
+        Snapshot withTimingMode(TimingMode timingMode) {
+            return new Snapshot(mouseButton, cps, clickLimitMode, clickLimit, theme, timingMode, timingJitter, holdMillis, holdJitter, burstCount, burstSpacingMicros, burstCooldownMillis);
+        }
+        Snapshot withTimingJitter(int timingJitter) {
+            return new Snapshot(mouseButton, cps, clickLimitMode, clickLimit, theme, timingMode, timingJitter, holdMillis, holdJitter, burstCount, burstSpacingMicros, burstCooldownMillis);
+        }
+        Snapshot withHoldMillis(int holdMillis) {
+            return new Snapshot(mouseButton, cps, clickLimitMode, clickLimit, theme, timingMode, timingJitter, holdMillis, holdJitter, burstCount, burstSpacingMicros, burstCooldownMillis);
+        }
+        Snapshot withHoldJitter(int holdJitter) {
+            return new Snapshot(mouseButton, cps, clickLimitMode, clickLimit, theme, timingMode, timingJitter, holdMillis, holdJitter, burstCount, burstSpacingMicros, burstCooldownMillis);
+        }
+        Snapshot withBurstCount(int burstCount) {
+            return new Snapshot(mouseButton, cps, clickLimitMode, clickLimit, theme, timingMode, timingJitter, holdMillis, holdJitter, burstCount, burstSpacingMicros, burstCooldownMillis);
+        }
+        Snapshot withBurstSpacingMicros(int burstSpacingMicros) {
+            return new Snapshot(mouseButton, cps, clickLimitMode, clickLimit, theme, timingMode, timingJitter, holdMillis, holdJitter, burstCount, burstSpacingMicros, burstCooldownMillis);
+        }
+        Snapshot withBurstCooldownMillis(int burstCooldownMillis) {
+            return new Snapshot(mouseButton, cps, clickLimitMode, clickLimit, theme, timingMode, timingJitter, holdMillis, holdJitter, burstCount, burstSpacingMicros, burstCooldownMillis);
+        }
+    }
+
     //user selected options:
-    private int mouseButton; //mouse button
-    private volatile int cps; //clicks/sec
-    private boolean clickLimitMode; //infinite or finite run mode
-    private int clickLimit; //num mouse clicks run when turned on
-    private int hotkey = NativeKeyEvent.VC_F8; //hotkey
-    private String theme;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(new Snapshot(0, 0, false, 0, null, null, 0, 0, 0, 0, 0, 0));
     //----------------------------------------
     //clicker state:
     private volatile boolean enabled = false; //whether clicker is enabled or not enabled
-    private final AtomicInteger clickCount = new AtomicInteger(0); //num clicks ran in current run of autoclicker
+    private final Object enabledLock = new Object();
+    //transitions not yet reported, in the order they happened; delivered by one thread at a time, with no lock held
+    private final ConcurrentLinkedQueue<Boolean> enabledChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean deliveringEnabled = new AtomicBoolean();
+    //num clicks ran in current run of autoclicker. 64-bit and striped: clicks may come from several threads
+    //(click loop, engine jobs, macro replay) without contending on one cache line
+    private final LongAdder clickCount = new LongAdder();
+    private final AtomicLong previousRunsClickCount = new AtomicLong(); //session total before the current run
+    private volatile String profileName = PROFILE_DEFAULT; //template the settings were last loaded from (run history)
     //----------------------------------------
     public static final String APP_VERSION = "1.6";
     //User input bounds constants:
     public static final int CPS_MIN = 1;
-    public static final int CPS_MAX = 50;
+    public static final int CPS_MAX = 1000;
     public static final int CLICK_LIMIT_MIN = 1;
     public static final int CLICK_LIMIT_MAX = 999_999;
+    public static final int JITTER_MIN = 0;
+    public static final int JITTER_MAX = 100;
+    public static final int HOLD_MILLIS_MIN = 0;
+    public static final int HOLD_MILLIS_MAX = 1000;
+    public static final int BURST_COUNT_MIN = 1;
+    public static final int BURST_COUNT_MAX = 1000;
+    public static final int BURST_SPACING_MICROS_MIN = 20;
+    public static final int BURST_SPACING_MICROS_MAX = 1_000_000;
+    public static final int BURST_COOLDOWN_MILLIS_MIN = 0;
+    public static final int BURST_COOLDOWN_MILLIS_MAX = 60_000;
     //default input values constants:
     public static final int MOUSE_BUTTON_DEFAULT = InputEvent.BUTTON1_DOWN_MASK;
     public static final int CPS_DEFAULT = 5;
     public static final boolean CLICK_LIMIT_MODE_DEFAULT = false;
     public static final int CLICK_LIMIT_DEFAULT = 50;
     public static final String THEME_DEFAULT = "Dark";
+    public static final String PROFILE_DEFAULT = "current";
+    public static final TimingMode TIMING_MODE_DEFAULT = TimingMode.FIXED;
+    public static final int TIMING_JITTER_DEFAULT = 15;
+    public static final int HOLD_MILLIS_DEFAULT = 0;
+    public static final int HOLD_JITTER_DEFAULT = 20;
+    public static final int BURST_COUNT_DEFAULT = 10;
+    public static final int BURST_SPACING_MICROS_DEFAULT = 500;
+    public static final int BURST_COOLDOWN_MILLIS_DEFAULT = 0;
     //main JFrame dims:
     public static final int WINDOW_WIDTH = 400;
-    public static final int WINDOW_HEIGHT = 290;
+    public static final int WINDOW_HEIGHT = 310;
 
 
 
@@ -60,6 +138,30 @@ public class ClickerConfig {
         setClickLimitMode(CLICK_LIMIT_MODE_DEFAULT);
         setClickLimit(CLICK_LIMIT_DEFAULT);
         setTheme(THEME_DEFAULT);
+        setTimingMode(TIMING_MODE_DEFAULT);
+        setTimingJitter(TIMING_JITTER_DEFAULT);
+        setHoldMillis(HOLD_MILLIS_DEFAULT);
+        setHoldJitter(HOLD_JITTER_DEFAULT);
+        setBurstCount(BURST_COUNT_DEFAULT);
+        setBurstSpacingMicros(BURST_SPACING_MICROS_DEFAULT);
+        setBurstCooldownMillis(BURST_COOLDOWN_MILLIS_DEFAULT);
+    }
+
+    //take over every saved setting of other (a config loaded elsewhere), firing the usual change events
+    public void copySettingsFrom(ClickerConfig other){
+        setMouseButton(other.getMouseButton());
+        setCps(other.getCps());
+        setClickLimitMode(other.isClickLimitMode());
+        setClickLimit(other.getClickLimit());
+        setTheme(other.getTheme());
+        setTimingMode(other.getTimingMode());
+        setTimingJitter(other.getTimingJitter());
+        setHoldMillis(other.getHoldMillis());
+        setHoldJitter(other.getHoldJitter());
+        setBurstCount(other.getBurstCount());
+        setBurstSpacingMicros(other.getBurstSpacingMicros());
+        setBurstCooldownMillis(other.getBurstCooldownMillis());
+        setProfileName(other.getProfileName());
     }
 
     //listener system initialization
@@ -68,86 +170,192 @@ public class ClickerConfig {
         support.addPropertyChangeListener(configChangeListener);
     }
 
+    public Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    //atomically apply a change to the current snapshot, returns the snapshot it replaced
+    private Snapshot updateSnapshot(UnaryOperator<Snapshot> change) {
+        return snapshot.getAndUpdate(change);
+    }
+
     public String getTheme() {
-        return theme;
+        return snapshot.get().theme();
     }
 
     public void setTheme(String theme) {
         //null-safe comparison
-        if (Objects.equals(this.theme, theme)) return;
+        Snapshot old = updateSnapshot(s -> Objects.equals(s.theme(), theme) ? s : s.withTheme(theme));
+        if (Objects.equals(old.theme(), theme)) return;
 
-        String old = this.theme;
-        this.theme = theme;
-        support.firePropertyChange("theme",old,theme);
+        support.firePropertyChange("theme",old.theme(),theme);
     }
 
     public int getCps() {
-        return cps;
+        return snapshot.get().cps();
     }
     public void setCps(int cps){
-        if (this.cps == cps) return;
+        Snapshot old = updateSnapshot(s -> s.cps() == cps ? s : s.withCps(cps));
+        if (old.cps() == cps) return;
+
+        support.firePropertyChange("cps",old.cps(),cps); //notify listeners
+    }
+
+    public TimingMode getTimingMode() {
+        return snapshot.get().timingMode();
+    }
+    public void setTimingMode(TimingMode timingMode) {
+        Snapshot old = updateSnapshot(s -> s.timingMode() == timingMode ? s : s.withTimingMode(timingMode));
+        if (old.timingMode() == timingMode) return;
+
+        support.firePropertyChange("timingMode",old.timingMode(),timingMode); //notify listeners
+    }
+
+    public int getTimingJitter() {
+        return snapshot.get().timingJitter();
+    }
+    public void setTimingJitter(int timingJitter) {
+        Snapshot old = updateSnapshot(s -> s.timingJitter() == timingJitter ? s : s.withTimingJitter(timingJitter));
+        if (old.timingJitter() == timingJitter) return;
+
+        support.firePropertyChange("timingJitter",old.timingJitter(),timingJitter); //notify listeners
+    }
+
+    public int getHoldMillis() {
+        return snapshot.get().holdMillis();
+    }
+    public void setHoldMillis(int holdMillis) {
+        Snapshot old = updateSnapshot(s -> s.holdMillis() == holdMillis ? s : s.withHoldMillis(holdMillis));
+        if (old.holdMillis() == holdMillis) return;
 
-        int old = this.cps;
-        this.cps = cps;
-        support.firePropertyChange("cps",old,cps); //notify listeners
+        support.firePropertyChange("holdMillis",old.holdMillis(),holdMillis); //notify listeners
+    }
+
+    public int getHoldJitter() {
+        return snapshot.get().holdJitter();
+    }
+    public void setHoldJitter(int holdJitter) {
+        Snapshot old = updateSnapshot(s -> s.holdJitter() == holdJitter ? s : s.withHoldJitter(holdJitter));
+        if (old.holdJitter() == holdJitter) return;
+
+        support.firePropertyChange("holdJitter",old.holdJitter(),holdJitter); //notify listeners
+    }
+
+    public int getBurstCount() {
+        return snapshot.get().burstCount();
+    }
+    public void setBurstCount(int burstCount) {
+        Snapshot old = updateSnapshot(s -> s.burstCount() == burstCount ? s : s.withBurstCount(burstCount));
+        if (old.burstCount() == burstCount) return;
+
+        support.firePropertyChange("burstCount",old.burstCount(),burstCount); //notify listeners
+    }
+
+    public int getBurstSpacingMicros() {
+        return snapshot.get().burstSpacingMicros();
+    }
+    public void setBurstSpacingMicros(int burstSpacingMicros) {
+        Snapshot old = updateSnapshot(s -> s.burstSpacingMicros() == burstSpacingMicros ? s : s.withBurstSpacingMicros(burstSpacingMicros));
+        if (old.burstSpacingMicros() == burstSpacingMicros) return;
+
+        support.firePropertyChange("burstSpacingMicros",old.burstSpacingMicros(),burstSpacingMicros); //notify listeners
+    }
+
+    public int getBurstCooldownMillis() {
+        return snapshot.get().burstCooldownMillis();
+    }
+    public void setBurstCooldownMillis(int burstCooldownMillis) {
+        Snapshot old = updateSnapshot(s -> s.burstCooldownMillis() == burstCooldownMillis ? s : s.withBurstCooldownMillis(burstCooldownMillis));
+        if (old.burstCooldownMillis() == burstCooldownMillis) return;
+
+        support.firePropertyChange("burstCooldownMillis",old.burstCooldownMillis(),burstCooldownMillis); //notify listeners
     }
 
     public boolean isEnabled() {
         return enabled;
     }
     public void setEnabled(boolean enabled) {
-        boolean old = this.enabled;
-        this.enabled = enabled;
-        support.firePropertyChange("enabled",old,enabled); //notify listeners
+        updateEnabled(enabled);
+        fireEnabledChanges();
     }
 
-    public int getHotkey() {
-        return hotkey;
+    //flip the flag and queue the transition without notifying anyone, so callers can do it under their own lock.
+    //concurrent callers (hotkey, click limit, UI) can't both queue the same transition. call fireEnabledChanges()
+    //once no lock is held
+    void updateEnabled(boolean enabled) {
+        synchronized (enabledLock) {
+            if (this.enabled == enabled) return;
+            this.enabled = enabled;
+            enabledChanges.offer(enabled);
+        }
     }
-    public void setHotkey(int hotkey) {
-        this.hotkey = hotkey;
+
+    //report queued transitions in the order they happened. listeners run without any lock held; a thread that
+    //finds another one delivering leaves its transitions to it
+    void fireEnabledChanges() {
+        while (!enabledChanges.isEmpty() && deliveringEnabled.compareAndSet(false, true)) {
+            try {
+                Boolean enabled;
+                while ((enabled = enabledChanges.poll()) != null) {
+                    support.firePropertyChange("enabled", !enabled, enabled.booleanValue()); //notify listeners
+                }
+            } finally {
+                deliveringEnabled.set(false);
+            }
+        }
+    }
+
+    public String getProfileName() {
+        return profileName;
+    }
+    public void setProfileName(String profileName) {
+        String old = this.profileName;
+        this.profileName = profileName;
+        support.firePropertyChange("profileName",old,profileName); //notify listeners
     }
 
     public int getMouseButton() {
-        return mouseButton;
+        return snapshot.get().mouseButton();
     }
     public void setMouseButton(int mouseButton) {
-        if (this.mouseButton == mouseButton) return;
+        Snapshot old = updateSnapshot(s -> s.mouseButton() == mouseButton ? s : s.withMouseButton(mouseButton));
+        if (old.mouseButton() == mouseButton) return;
 
-        int old = this.mouseButton;
-        this.mouseButton = mouseButton;
-        support.firePropertyChange("mouseButton",old,mouseButton); //notify listeners
+        support.firePropertyChange("mouseButton",old.mouseButton(),mouseButton); //notify listeners
     }
 
     public int getClickLimit() {
-        return clickLimit;
+        return snapshot.get().clickLimit();
     }
     public void setClickLimit(int clickLimit) {
-        if (this.clickLimit == clickLimit) return;
+        Snapshot old = updateSnapshot(s -> s.clickLimit() == clickLimit ? s : s.withClickLimit(clickLimit));
+        if (old.clickLimit() == clickLimit) return;
 
-        int old = this.clickLimit;
-        this.clickLimit = clickLimit;
-        support.firePropertyChange("clickLimit",old,clickLimit); //notify listeners
+        support.firePropertyChange("clickLimit",old.clickLimit(),clickLimit); //notify listeners
     }
 
     public boolean isClickLimitMode() {
-        return clickLimitMode;
+        return snapshot.get().clickLimitMode();
     }
     public void setClickLimitMode(boolean clickLimitMode) {
-        if (this.clickLimitMode == clickLimitMode) return;
+        Snapshot old = updateSnapshot(s -> s.clickLimitMode() == clickLimitMode ? s : s.withClickLimitMode(clickLimitMode));
+        if (old.clickLimitMode() == clickLimitMode) return;
 
-        boolean old = this.clickLimitMode;
-        this.clickLimitMode = clickLimitMode;
-        support.firePropertyChange("clickLimitMode",old,clickLimitMode); //notify listeners
+        support.firePropertyChange("clickLimitMode",old.clickLimitMode(),clickLimitMode); //notify listeners
     }
 
-    public int getClickCount() {
-        return clickCount.get();
+    public long getClickCount() {
+        return clickCount.sum();
+    }
+    //clicks since the app started, over all runs
+    public long getSessionClickCount() {
+        return previousRunsClickCount.get() + clickCount.sum();
     }
-    public void setClickCount(int value) {
-        clickCount.set(value);
+    //start a new run: the finished run's clicks move into the session total
+    public void resetClickCount() {
+        previousRunsClickCount.addAndGet(clickCount.sumThenReset());
     }
     public void incrementClickCount() {
-        clickCount.getAndIncrement();
+        clickCount.increment();
     }
 }
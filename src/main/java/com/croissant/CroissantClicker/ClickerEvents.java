@@ -0,0 +1,149 @@
+package com.croissant.CroissantClicker;
+
+import jdk.jfr.*;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+//custom Java Flight Recorder events. cheap when no recording is running: begin()/commit() on a disabled event are
+//no-ops the JIT removes together with the allocation. per-click events are disabled by default, even while recording,
+//enable them in a .jfc (see croissant.jfc) or with jfr configure: croissant.Click#enabled=true
+public final class ClickerEvents {
+
+    //record a flight recording with the bundled settings, dumped on exit: -Dcroissant.jfr=croissant.jfr
+    public static final String RECORDING_PROPERTY = "croissant.jfr";
+    //bundled settings, layered over the JDK "default" configuration
+    private static final String SETTINGS_RESOURCE = "/croissant.jfc";
+    private static final String CATEGORY = "Croissant Clicker";
+
+    private ClickerEvents() {
+    }
+
+    //no-op unless the property is set, so normal launches never touch the recorder
+    public static void startRecordingIfRequested() {
+        String destination = System.getProperty(RECORDING_PROPERTY);
+        if (destination == null || destination.isBlank()) return;
+
+        try (Reader reader = new InputStreamReader(ClickerEvents.class.getResourceAsStream(SETTINGS_RESOURCE), StandardCharsets.UTF_8)) {
+            Map<String, String> settings = new HashMap<>(Configuration.getConfiguration("default").getSettings());
+            settings.putAll(Configuration.create(reader).getSettings());
+
+            Recording recording = new Recording(settings);
+            recording.setName("Croissant Clicker");
+            recording.setToDisk(true);
+            recording.setDestination(Path.of(destination)); //written when the JVM exits
+            recording.start();
+        } catch (IOException | ParseException | RuntimeException e) {
+            System.err.println("Error starting flight recording: " + e.getMessage());
+        }
+    }
+
+    //settings of a run, shared by the start and whole-run events (abstract event classes are never registered)
+    abstract static class RunSettings extends Event {
+        @Label("Run Id") long runId;
+        @Label("Trigger Latency") @Description("Time from the triggering event (e.g. hotkey) to the run starting, 0 if none")
+        @Timespan(Timespan.NANOSECONDS) long triggerLatency;
+        @Label("Target CPS") int cps;
+        @Label("Click Limit") int clickLimit;
+        @Label("Click Limit Mode") boolean clickLimitMode;
+        @Label("Mouse Button") int mouseButton;
+        @Label("Timing Mode") String timingMode;
+        @Label("Timing Jitter") int timingJitter;
+        @Label("Hold Millis") int holdMillis;
+        @Label("Hold Jitter") int holdJitter;
+
+        void set(long runId, long triggerLatency, ClickerConfig.Snapshot settings) {
+            this.runId = runId;
+            this.triggerLatency = triggerLatency;
+            this.cps = settings.cps();
+            this.clickLimit = settings.clickLimit();
+            this.clickLimitMode = settings.clickLimitMode();
+            this.mouseButton = settings.mouseButton();
+            this.timingMode = settings.timingMode().name();
+            this.timingJitter = settings.timingJitter();
+            this.holdMillis = settings.holdMillis();
+            this.holdJitter = settings.holdJitter();
+        }
+    }
+
+    @Name("croissant.RunStart")
+    @Label("Click Run Start")
+    @Category({CATEGORY, "Clicking"})
+    @StackTrace(false)
+    static class RunStart extends RunSettings {
+    }
+
+    //spans the whole run; committed when it stops, carrying the settings in effect at that point
+    @Name("croissant.Run")
+    @Label("Click Run")
+    @Category({CATEGORY, "Clicking"})
+    @StackTrace(false)
+    static class Run extends RunSettings {
+        @Label("Clicks") long clicks;
+        @Label("Stopped By Limit") boolean limitReached;
+    }
+
+    //press to release of a single click, including the hold time
+    @Name("croissant.Click")
+    @Label("Click")
+    @Category({CATEGORY, "Clicking"})
+    @Enabled(false)
+    @StackTrace(false)
+    static class Click extends Event {
+        @Label("Run Id") long runId;
+        @Label("Index") @Description("Position of the click within its run") int index;
+        @Label("Lateness") @Description("How late the press fired relative to its scheduled deadline")
+        @Timespan(Timespan.NANOSECONDS) long lateness;
+        @Label("Interval") @Description("Time since the previous press of the run, 0 for the first")
+        @Timespan(Timespan.NANOSECONDS) long interval;
+        @Label("Hold") @Timespan(Timespan.NANOSECONDS) long hold;
+    }
+
+    //the governor found the target rate unreachable and capped it at what the host delivers
+    @Name("croissant.RateSaturation")
+    @Label("Rate Saturation")
+    @Category({CATEGORY, "Clicking"})
+    @StackTrace(false)
+    static class RateSaturation extends Event {
+        @Label("Target CPS") int targetCps;
+        @Label("Sustainable CPS") double sustainableCps;
+    }
+
+    //receipt of a bound hotkey, spanning its dispatch (starting a run, triggering a burst, ...)
+    @Name("croissant.Hotkey")
+    @Label("Hotkey")
+    @Category({CATEGORY, "Input"})
+    @StackTrace(false)
+    static class Hotkey extends Event {
+        @Label("Action") String action;
+        @Label("Key") String key;
+        @Label("Argument") String argument;
+        @Label("Debounced") @Description("Dropped as contact bounce or a double press") boolean debounced;
+    }
+
+    @Name("croissant.Persistence")
+    @Label("Template Persistence")
+    @Category({CATEGORY, "Persistence"})
+    static class Persistence extends Event {
+        @Label("Operation") String operation; //save, load, list, delete
+        @Label("Template") String template;
+        @Label("Backend") String backend;
+        @Label("Size") @Description("Bytes written or read, 0 when not known (binary store)") @DataAmount long bytes;
+        @Label("Templates") @Description("Number of names returned by list") int templates;
+    }
+
+    @Name("croissant.ThemeSwitch")
+    @Label("Theme Switch")
+    @Category({CATEGORY, "UI"})
+    @StackTrace(false)
+    static class ThemeSwitch extends Event {
+        @Label("Theme") String theme;
+        @Label("Components Restyled") @Description("Showing components updated; hidden ones follow when shown") int restyled;
+    }
+}
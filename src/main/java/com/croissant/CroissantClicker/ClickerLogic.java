@@ -1,75 +1,371 @@
 package com.croissant.CroissantClicker;
 
 import java.awt.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
 
 public class ClickerLogic {
 
+    //print both histograms to stdout whenever a run ends: -Dcroissant.histogram.dump=true
+    public static final String DUMP_HISTOGRAM_PROPERTY = "croissant.histogram.dump";
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    //never hold the button for more than this share of the gap, so the release always precedes the next press
+    private static final double MAX_HOLD_SHARE = 0.8;
+    private static final long HOLD_SPIN_THRESHOLD_NANOS = 1_000_000L;
+    //weight of the newest interval in the achieved rate average: 1/8
+    private static final int ACHIEVED_RATE_SHIFT = 3;
+    //longest stop() waits for a click in flight to be released. a release takes microseconds; this only bounds a
+    //sink that hangs, so the caller (often the native hook thread) is never stuck
+    private static final long STOP_WAIT_MAX_NANOS = 100_000_000L;
+
     private final ClickerConfig config;
-    private final Robot robot;
+    private final ClickSink sink;
+    private final ClickScheduler scheduler = new ClickScheduler();
+    //randomized intervals/hold times, precomputed off the click thread
+    private final TimingGenerator timing = new TimingGenerator();
+    //closes the loop on the delivered rate: makes up for late clicks, caps the rate when the host can't keep up
+    private final RateGovernor governor = new RateGovernor();
+    //delivered time between consecutive clicks, and time spent inside the sink press+release calls
+    private final LatencyHistogram intervalHistogram = new LatencyHistogram("inter-click interval");
+    private final LatencyHistogram clickHistogram = new LatencyHistogram("sink press+release");
+    //trigger (hotkey event) to first click of the run
+    private final LatencyHistogram startLatencyHistogram = new LatencyHistogram("trigger to first click");
+    //worker state: running is the request, active is true while the worker is inside a run.
+    //runId tells runs apart, so a quick stop+start can't be mistaken for the old run continuing
     private volatile boolean running = false;
-    private Thread thread;
+    private volatile boolean active = false;
+    private volatile boolean inClick = false;
+    //threads parked in stop() until the click in flight is released; unparked by the worker
+    private final ConcurrentLinkedQueue<Thread> stopWaiters = new ConcurrentLinkedQueue<>();
+    private volatile long runId = 0;
+    private volatile long triggerNanos;
+    private final Object runEnded = new Object();
+    private Thread worker;
+    private boolean limitReached; //worker thread only: did the last run end on the click limit
+    //exponential moving average of the delivered interval, written by the click thread only (0 = no interval yet).
+    //read lock-free by the metrics endpoints
+    private volatile long smoothedIntervalNanos;
+    private volatile SessionHistory history; //optional: every finished run is appended to it
 
     public ClickerLogic(ClickerConfig config) throws AWTException {
+        this(config, new RobotClickSink());
+    }
+
+    public ClickerLogic(ClickerConfig config, ClickSink sink) {
 
         this.config = config;
-        this.robot = new Robot();
+        this.sink = sink;
+
+    }
+
+    public ClickSink getSink() {
+        return sink;
+    }
+
+    public LatencyHistogram getIntervalHistogram() {
+        return intervalHistogram;
+    }
+
+    public LatencyHistogram getClickHistogram() {
+        return clickHistogram;
+    }
+
+    public LatencyHistogram getStartLatencyHistogram() {
+        return startLatencyHistogram;
+    }
+
+    public TimingGenerator getTiming() {
+        return timing;
+    }
+
+    public RateGovernor getGovernor() {
+        return governor;
+    }
+
+    public void setSessionHistory(SessionHistory history) {
+        this.history = history;
+    }
 
+    //delivered clicks per second, averaged over the last few intervals; 0 when not running
+    public double getAchievedCps() {
+        long interval = smoothedIntervalNanos;
+        return interval == 0 || !isRunning() ? 0 : (double) NANOS_PER_SECOND / interval;
+    }
+
+    public void dumpHistograms(java.io.PrintStream out) {
+        out.println("Run stats (target " + config.getCps() + " cps, " + config.getClickCount() + " clicks):");
+        intervalHistogram.dump(out);
+        clickHistogram.dump(out);
+        if (startLatencyHistogram.getCount() > 0) {
+            startLatencyHistogram.dump(out);
+        }
     }
 
     public void start() throws InterruptedException {
-        if (thread != null && thread.isAlive()){
-            return;
+        start(0);
+    }
+
+    //triggerNanos: System.nanoTime() of the event that asked for this run (e.g. a hotkey press), 0 if none.
+    //the delay from it to the first click is recorded in the start latency histogram (kept across runs).
+    //cheap enough to call from input callbacks: it only flips a flag and unparks the worker.
+    //config.enabled follows running: set here and cleared in stop() or on the click limit, under this lock. its
+    //listeners are only called once the lock is released
+    public void start(long triggerNanos) throws InterruptedException {
+        synchronized (this) {
+            if (running){
+                return;
+            }
+
+            config.resetClickCount();
+            intervalHistogram.reset();
+            clickHistogram.reset();
+            this.triggerNanos = triggerNanos;
+            runId++;
+            running = true;
+
+            if (worker == null){
+                worker = new Thread(this::workerLoop, "click-loop");
+                worker.setDaemon(true);
+                worker.start();
+            }
+            LockSupport.unpark(worker);
+            config.updateEnabled(true);
         }
+        config.fireEnabledChanges(); //after the unpark: listeners (UI) are never on the path to the first click
+    }
 
-        running = true;
-        config.setClickCount(0);
+    //one thread for the lifetime of the app, parked between runs
+    private void workerLoop() {
+        while (true) {
+            while (!running) {
+                LockSupport.park(this);
+            }
+            active = true;
+            long run = runId;
+            long trigger = triggerNanos;
 
-        thread = new Thread(()->{
-            //check mode:
-            int numRemainingClicks = -1;
-            if (config.isClickLimitMode()){
-                numRemainingClicks = config.getClickLimit();
+            long startMillis = System.currentTimeMillis();
+            long startNanos = System.nanoTime();
+            ClickerEvents.Run runEvent = new ClickerEvents.Run();
+            runEvent.begin();
+            ClickerEvents.RunStart startEvent = new ClickerEvents.RunStart();
+            if (startEvent.shouldCommit()) {
+                startEvent.set(run, trigger == 0 ? 0 : System.nanoTime() - trigger, config.getSnapshot());
+                startEvent.commit();
             }
 
-            //run clicking loop
-            while (running) {
-                int mouseButton = config.getMouseButton();
-                robot.mousePress(mouseButton);
-                robot.mouseRelease(mouseButton);
+            int clicks = runClicks(run, trigger);
+            recordHistory(startMillis, System.nanoTime() - startNanos, clicks);
 
-                int cps = config.getCps();
+            if (runEvent.shouldCommit()) {
+                runEvent.set(run, 0, config.getSnapshot());
+                runEvent.clicks = clicks;
+                runEvent.limitReached = limitReached;
+                runEvent.commit();
+            }
 
-                try {
-                    Thread.sleep(1000/cps); //convert cps to ms of delay
-                } catch(InterruptedException e){
-                    break;
-                }
+            if (Boolean.getBoolean(DUMP_HISTOGRAM_PROPERTY)) {
+                dumpHistograms(System.out);
+            }
+            synchronized (runEnded) {
+                active = false;
+                runEnded.notifyAll();
+            }
+        }
+    }
+
+    //hand the run to the history writer (lock-free queue, no disk access on this thread)
+    private void recordHistory(long startMillis, long durationNanos, int clicks) {
+        SessionHistory h = history;
+        if (h == null) return;
+        h.record(new SessionHistory.Run(startMillis, durationNanos, config.getProfileName(), config.getCps(),
+                durationNanos == 0 ? 0 : clicks * (double) NANOS_PER_SECOND / durationNanos, clicks,
+                limitReached ? SessionHistory.StopReason.LIMIT : SessionHistory.StopReason.STOPPED));
+    }
+
+    //run clicking loop on absolute deadlines (first click fires immediately).
+    //each tick reads one immutable config snapshot, so mid-run changes apply from the very next click.
+    //returns the number of clicks fired
+    private int runClicks(long run, long triggerNanos) {
+        int governedCps = config.getSnapshot().cps();
+        scheduler.reset(governedCps);
+        governor.reset(governedCps);
+        limitReached = false;
+        smoothedIntervalNanos = 0;
+        long lastClickStart = 0;
+        int clicksThisRun = 0;
+        while (true) {
+            long deadline = scheduler.getNextDeadline();
+            if (!awaitWhileRunning(deadline, scheduler.getSpinThresholdNanos(), run)) break;
+
+            ClickerConfig.Snapshot settings = config.getSnapshot();
+            timing.configure(settings);
+            int mouseButton = settings.mouseButton();
+            long holdNanos = Math.min(timing.nextHoldNanos(settings.holdMillis() * 1_000_000L),
+                    (long) (NANOS_PER_SECOND / settings.cps() * MAX_HOLD_SHARE));
+
+            //handshake with stop(): publish inClick, then re-check running. either stop() sees inClick and waits
+            //for the release, or we see running == false and never press (both fields volatile)
+            inClick = true;
+            if (!isCurrentRun(run)) {
+                inClick = false;
+                break;
+            }
+            //disabled by default: without a recording that enables it, this allocation and begin/commit compile away
+            ClickerEvents.Click clickEvent = new ClickerEvents.Click();
+            clickEvent.begin();
+            long clickStart = System.nanoTime();
+            scheduler.fired(clickStart);
+            sink.press(mouseButton);
+            long pressEnd = System.nanoTime();
+            if (holdNanos > 0) {
+                awaitWhileRunning(clickStart + holdNanos, HOLD_SPIN_THRESHOLD_NANOS, run); //cut short by stop()
+            }
+            long releaseStart = System.nanoTime();
+            sink.release(mouseButton); //always released, even when stopped mid-hold
+            inClick = false;
+            wakeStopWaiters();
+
+            if (clickEvent.shouldCommit()) {
+                clickEvent.runId = run;
+                clickEvent.index = clicksThisRun;
+                clickEvent.lateness = clickStart - deadline;
+                clickEvent.interval = lastClickStart == 0 ? 0 : clickStart - lastClickStart;
+                clickEvent.hold = releaseStart - clickStart;
+                clickEvent.commit();
+            }
 
-                config.incrementClickCount();
+            long clickEnd = System.nanoTime();
+            clickHistogram.record((pressEnd - clickStart) + (clickEnd - releaseStart));
+            governor.onClick(clickEnd, scheduler.isBehind());
+            if (lastClickStart != 0) {
+                long interval = clickStart - lastClickStart;
+                intervalHistogram.record(interval);
+                long smoothed = smoothedIntervalNanos;
+                smoothedIntervalNanos = smoothed == 0 ? interval : smoothed + ((interval - smoothed) >> ACHIEVED_RATE_SHIFT);
+            }
+            if (clicksThisRun == 0 && triggerNanos != 0) {
+                startLatencyHistogram.record(clickStart - triggerNanos);
+            }
+            lastClickStart = clickStart;
 
-                //stop clicker if click limit reached
-                if (numRemainingClicks != -1){
-                    numRemainingClicks--;
+            config.incrementClickCount();
+            clicksThisRun++;
 
-                    if (numRemainingClicks <= 0){
-                        config.setEnabled(false);
-                        break;
+            //stop clicker if click limit reached. enabled is cleared together with running, under the lock start()
+            //takes: a start in between can't be switched off by this run, and nobody sees running without enabled
+            if (settings.clickLimitMode() && clicksThisRun >= settings.clickLimit()){
+                synchronized (this) {
+                    if (isCurrentRun(run)) {
+                        running = false;
+                        config.updateEnabled(false);
                     }
                 }
+                config.fireEnabledChanges();
+                limitReached = true;
+                break;
             }
-        });
 
-        thread.start();
+            //re-read so a rate/timing change applies to the next deadline
+            ClickerConfig.Snapshot next = config.getSnapshot();
+            if (next.cps() != governedCps) {
+                governedCps = next.cps();
+                governor.reset(governedCps); //the old window says nothing about the new target
+            }
+            if (next.timingMode() == TimingMode.FIXED) {
+                if (governor.isAdjusting()) {
+                    scheduler.advanceBy(governor.adjust(NANOS_PER_SECOND / next.cps()));
+                } else {
+                    scheduler.advance(next.cps());
+                }
+            } else {
+                timing.configure(next);
+                scheduler.advanceBy(governor.adjust(timing.nextIntervalNanos(NANOS_PER_SECOND / next.cps())));
+            }
+        }
+        return clicksThisRun;
     }
 
-    public void stop(){
-        running = false;
-        if (thread != null){
-            thread.interrupt(); //wake up thread immediately (even if sleeping) and stop it from running
+    private void wakeStopWaiters() {
+        Thread waiter;
+        while ((waiter = stopWaiters.poll()) != null) {
+            LockSupport.unpark(waiter);
         }
     }
-}
 
+    private boolean isCurrentRun(long run) {
+        return running && runId == run;
+    }
 
+    //park then spin until the deadline; returns false as soon as the run is stopped (stop() unparks us)
+    private boolean awaitWhileRunning(long deadline, long spinThresholdNanos, long run) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > spinThresholdNanos) {
+            LockSupport.parkNanos(this, remaining - spinThresholdNanos);
+            if (!isCurrentRun(run)) return false;
+        }
+        while (deadline - System.nanoTime() > 0) {
+            if (!isCurrentRun(run)) return false;
+            Thread.onSpinWait();
+        }
+        return isCurrentRun(run);
+    }
+
+    //wait for the click loop to end (limit reached or stopped); millis 0 waits forever
+    public void join(long millis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + millis;
+        synchronized (runEnded) {
+            while (running || active) {
+                long remaining = millis == 0 ? 0 : deadline - System.currentTimeMillis();
+                if (millis != 0 && remaining <= 0) return;
+                runEnded.wait(remaining);
+            }
+        }
+    }
 
+    public boolean isRunning(){
+        return running || active;
+    }
+
+    //returns once no click is in flight: nothing is pressed after this returns, and a held button is released.
+    //the wait is bounded (STOP_WAIT_MAX_NANOS) in case the sink hangs
+    public void stop(){
+        synchronized (this) {
+            running = false;
+            config.updateEnabled(false);
+        }
+        config.fireEnabledChanges();
+        synchronized (runEnded) {
+            runEnded.notifyAll(); //a run that never got going won't notify by itself
+        }
+        Thread w = worker;
+        if (w != null){
+            LockSupport.unpark(w); //wake the worker immediately (parked between clicks or mid-hold)
+            if (Thread.currentThread() != w) {
+                awaitClickReleased();
+            }
+        }
+    }
 
+    //park until the worker clears inClick (it unparks every registered waiter right after the release).
+    //registering before reading inClick means either we see it cleared or the worker sees us
+    private void awaitClickReleased() {
+        if (!inClick) return;
+        Thread current = Thread.currentThread();
+        stopWaiters.add(current);
+        long deadline = System.nanoTime() + STOP_WAIT_MAX_NANOS;
+        try {
+            while (inClick) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    System.err.println("Click output did not release within " + STOP_WAIT_MAX_NANOS / 1_000_000
+                            + " ms, not waiting for it");
+                    return;
+                }
+                LockSupport.parkNanos(this, remaining);
+            }
+        } finally {
+            stopWaiters.remove(current);
+        }
+    }
+}
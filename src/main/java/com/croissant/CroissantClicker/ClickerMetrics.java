@@ -0,0 +1,218 @@
+package com.croissant.CroissantClicker;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+//exposes live run statistics as a JMX MXBean, and optionally as a Prometheus text endpoint on the loopback
+//interface: -Dcroissant.metrics.port=9464 -> http://127.0.0.1:9464/metrics
+//every value is read from lock-free fields kept by ClickerLogic, ClickerConfig and SaveDataManager, so scraping
+//never blocks or slows the click thread.
+public class ClickerMetrics implements ClickerMetricsMXBean {
+
+    public static final String PORT_PROPERTY = "croissant.metrics.port";
+    public static final String OBJECT_NAME = "com.croissant.CroissantClicker:type=Clicker";
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+
+    private final ClickerConfig config;
+    private final ClickerLogic logic;
+    private HttpServer server;
+
+    public ClickerMetrics(ClickerConfig config, ClickerLogic logic) {
+        this.config = config;
+        this.logic = logic;
+    }
+
+    //register the MBean and start the HTTP endpoint if a port is configured. slow (loads JMX), call off the EDT
+    public void start() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.err.println("Error registering metrics MBean: " + e.getMessage());
+        }
+
+        Integer port = Integer.getInteger(PORT_PROPERTY);
+        if (port == null) return;
+        try {
+            //loopback only: the endpoint is for local tooling and has no authentication
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+            server.createContext("/metrics", this::handleScrape);
+            server.start(); //requests are served on the server's own dispatcher thread, never the click thread
+        } catch (IOException e) {
+            System.err.println("Error starting metrics endpoint on port " + port + ": " + e.getMessage());
+        }
+    }
+
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+    }
+
+    public int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return logic.isRunning();
+    }
+
+    @Override
+    public int getTargetCps() {
+        return config.getCps();
+    }
+
+    @Override
+    public double getAchievedCps() {
+        return logic.getAchievedCps();
+    }
+
+    @Override
+    public boolean isSaturated() {
+        return logic.getGovernor().isSaturated();
+    }
+
+    @Override
+    public double getSustainableCps() {
+        return logic.getGovernor().getSustainableCps();
+    }
+
+    @Override
+    public long getRunClicks() {
+        return config.getClickCount();
+    }
+
+    @Override
+    public long getTotalClicks() {
+        return config.getSessionClickCount();
+    }
+
+    @Override
+    public long getIntervalCount() {
+        return logic.getIntervalHistogram().getCount();
+    }
+
+    @Override
+    public double getIntervalMeanMillis() {
+        return logic.getIntervalHistogram().getMean() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getIntervalP50Millis() {
+        return logic.getIntervalHistogram().getPercentile(50) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getIntervalP99Millis() {
+        return logic.getIntervalHistogram().getPercentile(99) / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getIntervalMaxMillis() {
+        return logic.getIntervalHistogram().getMax() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public int getAutosaveQueueDepth() {
+        return SaveDataManager.getAutosaveQueueDepth();
+    }
+
+    @Override
+    public long getSaveCount() {
+        return SaveDataManager.getSaveCount();
+    }
+
+    @Override
+    public double getLastSaveMillis() {
+        return SaveDataManager.getLastSaveNanos() / NANOS_PER_MILLI;
+    }
+
+    @Override
+    public double getMaxSaveMillis() {
+        return SaveDataManager.getMaxSaveNanos() / NANOS_PER_MILLI;
+    }
+
+    private void handleScrape(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        }
+    }
+
+    //Prometheus text exposition format 0.0.4, base units (seconds)
+    String scrape() {
+        LatencyHistogram intervals = logic.getIntervalHistogram();
+        StringBuilder out = new StringBuilder(2048);
+
+        gauge(out, "croissant_running", "1 while a click run is active", isRunning() ? 1 : 0);
+        gauge(out, "croissant_target_cps", "Configured clicks per second", getTargetCps());
+        gauge(out, "croissant_achieved_cps", "Delivered clicks per second, recent average", getAchievedCps());
+        gauge(out, "croissant_saturated", "1 while the target rate is out of reach and capped", isSaturated() ? 1 : 0);
+        gauge(out, "croissant_sustainable_cps", "Rate the host keeps up with while saturated, else the target", getSustainableCps());
+        counter(out, "croissant_saturations_total", "Times the target rate was found unreachable", logic.getGovernor().getSaturations());
+        gauge(out, "croissant_run_clicks", "Clicks of the current or last run", getRunClicks());
+        counter(out, "croissant_clicks_total", "Clicks since the app started", getTotalClicks());
+
+        String interval = "croissant_click_interval_seconds";
+        header(out, interval, "summary", "Inter-click interval of the current or last run");
+        sample(out, interval + "{quantile=\"0.5\"}", intervals.getPercentile(50) / NANOS_PER_SECOND);
+        sample(out, interval + "{quantile=\"0.99\"}", intervals.getPercentile(99) / NANOS_PER_SECOND);
+        sample(out, interval + "{quantile=\"1\"}", intervals.getMax() / NANOS_PER_SECOND);
+        sample(out, interval + "_sum", intervals.getSum() / NANOS_PER_SECOND);
+        sample(out, interval + "_count", intervals.getCount());
+
+        gauge(out, "croissant_autosave_queue_depth", "Config changes waiting for the autosave writer", getAutosaveQueueDepth());
+        String save = "croissant_save_duration_seconds";
+        header(out, save, "summary", "Template/autosave write time");
+        sample(out, save + "_sum", SaveDataManager.getSaveNanosTotal() / NANOS_PER_SECOND);
+        sample(out, save + "_count", getSaveCount());
+        gauge(out, "croissant_save_last_seconds", "Duration of the most recent save", SaveDataManager.getLastSaveNanos() / NANOS_PER_SECOND);
+        gauge(out, "croissant_save_max_seconds", "Longest save since the app started", SaveDataManager.getMaxSaveNanos() / NANOS_PER_SECOND);
+        return out.toString();
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, double value) {
+        header(out, name, "gauge", help);
+        sample(out, name, value);
+    }
+
+    private static void counter(StringBuilder out, String name, String help, double value) {
+        header(out, name, "counter", help);
+        sample(out, name, value);
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder out, String name, double value) {
+        out.append(name).append(' ');
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            out.append((long) value);
+        } else {
+            out.append(String.format(Locale.ROOT, "%.9g", value));
+        }
+        out.append('\n');
+    }
+}
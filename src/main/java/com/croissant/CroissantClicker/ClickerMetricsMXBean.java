@@ -0,0 +1,40 @@
+package com.croissant.CroissantClicker;
+
+//live run statistics over JMX (jconsole, VisualVM, jmxterm): com.croissant.CroissantClicker:type=Clicker
+public interface ClickerMetricsMXBean {
+
+    boolean isRunning();
+
+    int getTargetCps();
+
+    double getAchievedCps();
+
+    //the governor found the target unreachable; sustainable is what the host currently delivers (else the target)
+    boolean isSaturated();
+
+    double getSustainableCps();
+
+    //clicks of the current (or last) run, and of the whole session
+    long getRunClicks();
+
+    long getTotalClicks();
+
+    //inter-click interval summary of the current (or last) run
+    long getIntervalCount();
+
+    double getIntervalMeanMillis();
+
+    double getIntervalP50Millis();
+
+    double getIntervalP99Millis();
+
+    double getIntervalMaxMillis();
+
+    int getAutosaveQueueDepth();
+
+    long getSaveCount();
+
+    double getLastSaveMillis();
+
+    double getMaxSaveMillis();
+}
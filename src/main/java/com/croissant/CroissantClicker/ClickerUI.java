@@ -5,6 +5,8 @@ import net.miginfocom.swing.MigLayout;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.InputEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.beans.PropertyChangeEvent;
 import java.util.Objects;
 
@@ -12,16 +14,20 @@ public class ClickerUI extends JFrame {
 
     private final ClickerConfig config;
     private final ClickerLogic logic;
+    private final BurstEngine burst;
     private final ClickerUIDrawer drawer;
+    private final HotkeyEngine hotkeys;
 
-    //Timer updating click count 20 times/sec in UI
-    private final Timer clickCountRefreshTimer = new Timer(50, _->updateClickCount());
+    //pushes click count/rate to the EDT while running, only when it changed (max 20 times/sec by default)
+    private final ClickCountPublisher clickCountPublisher;
     //Timer for toggle count down when toggle button is clicked
     private Timer toggleCountDownTimer;
     private int countdown;
 
     JLabel clickCounterLabel;
+    JLabel latencyLabel;
     JLabel toggleIndicator;
+    JLabel hotKeyLabel;
     JSpinner cpsSpinner;
     JSpinner clickLimitSpinner;
     JComboBox<String> mouseButtonSelector;
@@ -32,11 +38,14 @@ public class ClickerUI extends JFrame {
     String colorRed = "#d32f2f";
 
 
-    public ClickerUI(ClickerConfig config, ClickerLogic logic) {
+    public ClickerUI(ClickerConfig config, ClickerLogic logic, HotkeyEngine hotkeys, BurstEngine burst) {
         this.config = config;
         this.logic = logic;
+        this.burst = burst;
+        this.hotkeys = hotkeys;
+        clickCountPublisher = new ClickCountPublisher(config, SwingUtilities::invokeLater, this::updateClickCount);
 
-        drawer = new ClickerUIDrawer(config);
+        drawer = new ClickerUIDrawer(config, hotkeys);
         //glass pane consumes user mouse clicks so they don't leak to UI under drawer when open
         setGlassPane(drawer);
 
@@ -45,7 +54,8 @@ public class ClickerUI extends JFrame {
             //update UI on swing thread:
             SwingUtilities.invokeLater(()->{
                 if ("enabled".equals(evt.getPropertyName())){
-                    updateStatus();
+                    //the transition this event carries, not the live flag: it may have flipped again since
+                    updateStatus((Boolean) evt.getNewValue());
                 }
                 else{
                     refreshInputFields(evt);
@@ -56,6 +66,24 @@ public class ClickerUI extends JFrame {
         initUI();
     }
 
+    //build and show the window on the EDT. kept here so Main (and the headless path through it) never
+    //references Swing types directly and the verifier doesn't load them
+    public static void createAndShow(ClickerConfig config, ClickerLogic logic, HotkeyEngine hotkeys, BurstEngine burst) {
+        SwingUtilities.invokeLater(() -> {
+            //theme first, so the components are created styled and never need a tree-wide update
+            ThemeManager.install(config.getTheme());
+            ClickerUI ui = new ClickerUI(config, logic, hotkeys, burst);
+            ui.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowOpened(WindowEvent e) {
+                    StartupTimer.markFirstFrame();
+                }
+            });
+
+            ui.setVisible(true);
+        });
+    }
+
     private void refreshInputFields(PropertyChangeEvent evt) {
 
         if ("cps".equals(evt.getPropertyName())){
@@ -77,48 +105,96 @@ public class ClickerUI extends JFrame {
             drawer.setThemeSelector(theme);
             ThemeManager.setTheme(theme, this);
         }
+        else if ("timingMode".equals(evt.getPropertyName()) || "timingJitter".equals(evt.getPropertyName())
+                || "holdMillis".equals(evt.getPropertyName()) || "holdJitter".equals(evt.getPropertyName())){
+            drawer.refreshTimingFields();
+        }
+        else if ("burstCount".equals(evt.getPropertyName()) || "burstSpacingMicros".equals(evt.getPropertyName())
+                || "burstCooldownMillis".equals(evt.getPropertyName())){
+            drawer.refreshBurstFields();
+        }
+        else if ("profileName".equals(evt.getPropertyName())){
+            //only recorded in the run history, nothing shown
+        }
         else{
             System.err.println("Event name non-existent");
         }
     }
 
-    private void updateStatus(){
+    //the bound toggle key, rebindable in the drawer settings
+    private void updateHotkeyLabel(){
+        hotKeyLabel.setText("[" + HotkeyEngine.keyName(hotkeys.getKey(HotkeyAction.TOGGLE, null)) + "]");
+    }
+
+    //display only: enabled is flipped by ClickerLogic itself, together with its running state (start/stop from
+    //the button, a hotkey or the control channel, or the click limit), so a stale event can't start a run
+    private void updateStatus(boolean enabled){
         //turn on clicker
-        if (config.isEnabled()){
+        if (enabled){
             toggleIndicator.putClientProperty("FlatLaf.style", "foreground: " + colorGreen);
             toggleIndicatorButton.setText("ON");
 
-            //ensure input valid
+            //ensure input valid (a hotkey start doesn't go through startClicker)
             if (!commitAndValidateSpinnerInput()){
-                config.setEnabled(false);
                 System.err.println("invalid input");
+                logic.stop();
                 return;
             }
-
-            clickCountRefreshTimer.start();
-
-            try {
-                logic.start();
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                System.err.println("Failed to start autoclicker logic: " + e.getMessage());
-                config.setEnabled(false);
-            }
+            clickCountPublisher.start(); //after logic.start(), which resets the run count
         }
         //turn off clicker
         else {
             toggleIndicator.putClientProperty("FlatLaf.style", "foreground: " + colorRed);
             toggleIndicatorButton.setText("OFF");
 
-            logic.stop();
+            clickCountPublisher.stop();
+            updateClickCount(clickCountPublisher.current()); //ensure clickCounter stops on correct final count
+        }
+    }
 
-            clickCountRefreshTimer.stop();
-            updateClickCount(); //ensure clickCounter stops on correct final count
+    private void startClicker(){
+        if (!commitAndValidateSpinnerInput()){
+            System.err.println("invalid input");
+            updateStatus(false);
+            return;
+        }
+        try {
+            logic.start();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Failed to start autoclicker logic: " + e.getMessage());
+            updateStatus(false);
         }
     }
 
-    private void updateClickCount() {
-        clickCounterLabel.setText("Click Count: " + config.getClickCount());
+    private void updateClickCount(ClickCountPublisher.Update update) {
+        RateGovernor governor = logic.getGovernor();
+        if (governor.isSaturated() && logic.isRunning()){
+            //say so instead of quietly falling short
+            clickCounterLabel.setText(String.format("Click Count: %,d  (%.1f cps, max ~%.0f)", update.runClicks(),
+                    update.cps(), governor.getSustainableCps()));
+            clickCounterLabel.setToolTipText(String.format("<html>Session total: %,d clicks<br>%d cps is more than this"
+                    + " machine can deliver right now, running at ~%.0f cps</html>", update.sessionClicks(),
+                    config.getCps(), governor.getSustainableCps()));
+        } else {
+            clickCounterLabel.setText(String.format("Click Count: %,d  (%.1f cps)", update.runClicks(), update.cps()));
+            clickCounterLabel.setToolTipText(String.format("Session total: %,d clicks", update.sessionClicks()));
+        }
+        LatencyHistogram intervals = logic.getIntervalHistogram();
+        if (intervals.getCount() > 0){
+            latencyLabel.setText("Interval " + intervals.summary());
+            String tooltip = "Time in click output: " + logic.getClickHistogram().summary();
+            LatencyHistogram startLatency = logic.getStartLatencyHistogram();
+            if (startLatency.getCount() > 0){
+                tooltip += "<br>Hotkey to first click: " + startLatency.summary();
+            }
+            BurstEngine.Report burstReport = burst.getLastReport();
+            if (burstReport != null){
+                tooltip += "<br>Last " + burstReport;
+            }
+            tooltip = "<html>" + tooltip + "</html>";
+            latencyLabel.setToolTipText(tooltip);
+        }
     }
 
     //ensure any manually typed user input in spinners is updated in config
@@ -225,8 +301,10 @@ public class ClickerUI extends JFrame {
         setHeaderStyle(toggleIndicator);
         toggleIndicator.putClientProperty("FlatLaf.style", "foreground: " + colorRed);
 
-        JLabel hotKeyLabel = new JLabel("[F8]");
+        hotKeyLabel = new JLabel();
         setHeaderStyle(hotKeyLabel);
+        updateHotkeyLabel();
+        drawer.setHotkeyChangeListener(this::updateHotkeyLabel);
 
 
         headerPanel.add(new JSeparator(), "dock north, growx");
@@ -337,7 +415,11 @@ public class ClickerUI extends JFrame {
                 "[left][right]"
         ));
 
-        clickCounterLabel = new JLabel("Click Count: " + config.getClickCount());
+        clickCounterLabel = new JLabel(String.format("Click Count: %,d", config.getClickCount()));
+
+        //delivered inter-click interval percentiles
+        latencyLabel = new JLabel(" ");
+        latencyLabel.setFont(latencyLabel.getFont().deriveFont(Font.PLAIN, 10f));
 
         toggleIndicatorButton = new JButton("OFF");
         toggleIndicatorButton.putClientProperty("JButton.buttonType", "roundRect");
@@ -346,6 +428,7 @@ public class ClickerUI extends JFrame {
         mainPanelSouth.add(new JSeparator(), "growx, span 2");
         mainPanelSouth.add(clickCounterLabel);
         mainPanelSouth.add(toggleIndicatorButton);
+        mainPanelSouth.add(latencyLabel, "span 2");
         mainPanelSouth.add(new JSeparator(), "growx, span 2");
 
         mainPanel.add(mainPanelSouth, BorderLayout.SOUTH);
@@ -370,14 +453,14 @@ public class ClickerUI extends JFrame {
                 }
                 else{
                     toggleCountDownTimer.stop();
-                    config.setEnabled(true);
+                    startClicker();
                     toggleIndicatorButton.setEnabled(true);
                 }
             });
             toggleCountDownTimer.start();
         }
         else{
-            config.setEnabled(false);
+            logic.stop();
             toggleIndicatorButton.setEnabled(true);
         }
     }
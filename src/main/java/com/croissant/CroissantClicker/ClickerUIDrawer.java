@@ -1,20 +1,45 @@
 package com.croissant.CroissantClicker;
 
+import com.github.kwhat.jnativehook.keyboard.NativeKeyEvent;
 import net.miginfocom.swing.MigLayout;
 
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
+import java.awt.image.VolatileImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 public class ClickerUIDrawer extends JPanel {
 
+    private static final Color BACKDROP_COLOR = new Color(0, 0, 0, 100);
+    //slide in/out: one frame clock ticking at ~60 fps, only while the drawer moves
+    private static final int FRAME_MILLIS = 1000 / 60;
+    private static final long SLIDE_NANOS = 180_000_000L;
+
     private final ClickerConfig config;
+    private final HotkeyEngine hotkeys;
 
     //overlay drawer panel
+    private JPanel drawerContainer;
     private JPanel drawerCardContainer;
     private boolean drawerContainerVisible = false;
+    //slide animation state:
+    private final Timer frameClock = new Timer(FRAME_MILLIS, _ -> onFrame());
+    private double openFraction; //0 = closed, 1 = open, linear in time (eased when drawn)
+    private long lastFrameNanos;
+    private int slideX; //drawer x as last drawn
+    //while sliding, the dimmed window behind the drawer and the drawer itself are drawn from these snapshots,
+    //taken once per slide, so a frame is two image copies over the strip the drawer moved across
+    private VolatileImage backdropImage;
+    private VolatileImage stripImage;
     //overlay drawer subpanels:
     private JPanel settingsPanel;
     private JPanel saveConfigPanel;
@@ -25,9 +50,34 @@ public class ClickerUIDrawer extends JPanel {
     private JButton saveButton;
     private JButton settingsButton;
     private JComboBox<String> themeSelector;
-
-    public ClickerUIDrawer(ClickerConfig config){
+    private JButton toggleKeyButton;
+    private JButton holdKeyButton;
+    private JButton burstKeyButton;
+    private JButton recordKeyButton;
+    private JButton replayKeyButton;
+    private JSpinner burstCountSpinner;
+    private JSpinner burstSpacingSpinner;
+    private JSpinner burstCooldownSpinner;
+    private JComboBox<TimingMode> timingModeSelector;
+    private JSpinner timingJitterSpinner;
+    private JSpinner holdMillisSpinner;
+    private JSpinner holdJitterSpinner;
+    private JButton exportButton;
+    private JProgressBar exportProgressBar;
+    private JLabel exportStatusLabel;
+    private JComboBox<TemplateArchive.ConflictPolicy> conflictPolicySelector;
+    private JButton importButton;
+    private JProgressBar importProgressBar;
+    private JLabel importStatusLabel;
+    //running export/import, null when idle; its button cancels it
+    private SwingWorker<?, ?> exportWorker;
+    private SwingWorker<?, ?> importWorker;
+    //told after every rebind from the hotkey buttons (header key label)
+    private Runnable hotkeyChangeListener = () -> {};
+
+    public ClickerUIDrawer(ClickerConfig config, HotkeyEngine hotkeys){
         this.config = config;
+        this.hotkeys = hotkeys;
 
         initUIDrawer();
     }
@@ -35,14 +85,22 @@ public class ClickerUIDrawer extends JPanel {
     //draw transparent black background over existing menu:
     @Override
     protected void paintComponent(Graphics g) {
+        if (frameClock.isRunning() && drawSnapshot(g, true)) return;
+
         Graphics2D g2d = (Graphics2D) g.create();
-        g2d.setColor(new Color(0, 0, 0, 100));
+        g2d.setColor(BACKDROP_COLOR);
         g2d.fillRect(0, 0, getWidth(), getHeight());
         g2d.dispose();
 
         super.paintComponent(g); //ensure children are then painted on top
     }
 
+    @Override
+    protected void paintChildren(Graphics g) {
+        if (frameClock.isRunning() && drawSnapshot(g, false)) return;
+        super.paintChildren(g);
+    }
+
     private void initUIDrawer(){
 
         setLayout(new BorderLayout());
@@ -51,7 +109,7 @@ public class ClickerUIDrawer extends JPanel {
         setBounds(0,0,ClickerConfig.WINDOW_WIDTH,ClickerConfig.WINDOW_HEIGHT);
 
         //entire drawer page container
-        JPanel drawerContainer = new JPanel(new BorderLayout());
+        drawerContainer = new JPanel(new BorderLayout());
         drawerContainer.setPreferredSize(new Dimension(ClickerConfig.WINDOW_WIDTH/2,ClickerConfig.WINDOW_HEIGHT));
         add(drawerContainer,BorderLayout.WEST);
 
@@ -85,24 +143,103 @@ public class ClickerUIDrawer extends JPanel {
                 "[][][]10[]"
         ));
 
+        //global hotkeys: click the button, then press the new key (Esc clears the binding).
+        //hold key clicks only while held; it can also be a middle/side mouse button
         JLabel hotKeyLabel = new JLabel("Hotkey:");
+        toggleKeyButton = buildHotkeyButton(HotkeyAction.TOGGLE);
 
-        JLabel ActiveHotKeyLabel = new JLabel("[F8]");
+        JLabel holdKeyLabel = new JLabel("Hold key:");
+        holdKeyButton = buildHotkeyButton(HotkeyAction.HOLD);
 
         JLabel themeLabel = new JLabel("Theme:");
 
-        String[] themeStrings = {"Dark", "Light"};
-        themeSelector = new JComboBox<>(themeStrings);
+        //built-in themes plus the custom ones in <save dir>/themes
+        themeSelector = new JComboBox<>(ThemeManager.getThemeNames().toArray(String[]::new));
         themeSelector.setSelectedItem(config.getTheme());
         themeSelector.addActionListener(_ -> config.setTheme((String)themeSelector.getSelectedItem()));
 
+        //click timing: interval distribution and button hold time
+        JLabel timingModeLabel = new JLabel("Timing:");
+
+        timingModeSelector = new JComboBox<>(TimingMode.values());
+        timingModeSelector.setSelectedItem(config.getTimingMode());
+        timingModeSelector.addActionListener(_ -> {
+            TimingMode mode = (TimingMode) timingModeSelector.getSelectedItem();
+            config.setTimingMode(mode);
+            timingJitterSpinner.setEnabled(mode == TimingMode.GAUSSIAN || mode == TimingMode.UNIFORM);
+        });
+
+        JLabel timingJitterLabel = new JLabel("Jitter %:");
+        timingJitterSpinner = new JSpinner(new SpinnerNumberModel(config.getTimingJitter(), ClickerConfig.JITTER_MIN, ClickerConfig.JITTER_MAX, 1));
+        timingJitterSpinner.addChangeListener(_ -> config.setTimingJitter((int)timingJitterSpinner.getValue()));
+        timingJitterSpinner.setEnabled(config.getTimingMode() == TimingMode.GAUSSIAN || config.getTimingMode() == TimingMode.UNIFORM);
+
+        JLabel holdMillisLabel = new JLabel("Hold ms:");
+        holdMillisSpinner = new JSpinner(new SpinnerNumberModel(config.getHoldMillis(), ClickerConfig.HOLD_MILLIS_MIN, ClickerConfig.HOLD_MILLIS_MAX, 1));
+        holdMillisSpinner.addChangeListener(_ -> config.setHoldMillis((int)holdMillisSpinner.getValue()));
+
+        JLabel holdJitterLabel = new JLabel("Hold jitter %:");
+        holdJitterSpinner = new JSpinner(new SpinnerNumberModel(config.getHoldJitter(), ClickerConfig.JITTER_MIN, ClickerConfig.JITTER_MAX, 1));
+        holdJitterSpinner.addChangeListener(_ -> config.setHoldJitter((int)holdJitterSpinner.getValue()));
+
 
         settingsPanel.add(hotKeyLabel);
-        settingsPanel.add(ActiveHotKeyLabel);
+        settingsPanel.add(toggleKeyButton);
+        settingsPanel.add(holdKeyLabel);
+        settingsPanel.add(holdKeyButton);
         settingsPanel.add(themeLabel);
         settingsPanel.add(themeSelector);
+        settingsPanel.add(timingModeLabel);
+        settingsPanel.add(timingModeSelector);
+        settingsPanel.add(timingJitterLabel);
+        settingsPanel.add(timingJitterSpinner);
+        settingsPanel.add(holdMillisLabel);
+        settingsPanel.add(holdMillisSpinner);
+        settingsPanel.add(holdJitterLabel);
+        settingsPanel.add(holdJitterSpinner);
+        //burst: N clicks at a fixed microsecond spacing, repeated after the cooldown (0 = once per key press)
+        JLabel burstKeyLabel = new JLabel("Burst key:");
+        burstKeyButton = buildHotkeyButton(HotkeyAction.BURST);
+
+        JLabel burstCountLabel = new JLabel("Burst clicks:");
+        burstCountSpinner = new JSpinner(new SpinnerNumberModel(config.getBurstCount(), ClickerConfig.BURST_COUNT_MIN, ClickerConfig.BURST_COUNT_MAX, 1));
+        burstCountSpinner.addChangeListener(_ -> config.setBurstCount((int)burstCountSpinner.getValue()));
+
+        JLabel burstSpacingLabel = new JLabel("Spacing µs:");
+        burstSpacingSpinner = new JSpinner(new SpinnerNumberModel(config.getBurstSpacingMicros(), ClickerConfig.BURST_SPACING_MICROS_MIN, ClickerConfig.BURST_SPACING_MICROS_MAX, 10));
+        burstSpacingSpinner.addChangeListener(_ -> config.setBurstSpacingMicros((int)burstSpacingSpinner.getValue()));
+
+        JLabel burstCooldownLabel = new JLabel("Cooldown ms:");
+        burstCooldownSpinner = new JSpinner(new SpinnerNumberModel(config.getBurstCooldownMillis(), ClickerConfig.BURST_COOLDOWN_MILLIS_MIN, ClickerConfig.BURST_COOLDOWN_MILLIS_MAX, 10));
+        burstCooldownSpinner.addChangeListener(_ -> config.setBurstCooldownMillis((int)burstCooldownSpinner.getValue()));
+
+        //quick macro: the record key starts/stops capturing mouse and keyboard, the replay key plays it back once
+        JLabel recordKeyLabel = new JLabel("Record key:");
+        recordKeyButton = buildHotkeyButton(HotkeyAction.RECORD);
+
+        JLabel replayKeyLabel = new JLabel("Replay key:");
+        replayKeyButton = buildHotkeyButton(HotkeyAction.REPLAY);
+
+        settingsPanel.add(burstKeyLabel);
+        settingsPanel.add(burstKeyButton);
+        settingsPanel.add(burstCountLabel);
+        settingsPanel.add(burstCountSpinner);
+        settingsPanel.add(burstSpacingLabel);
+        settingsPanel.add(burstSpacingSpinner);
+        settingsPanel.add(burstCooldownLabel);
+        settingsPanel.add(burstCooldownSpinner);
+        settingsPanel.add(recordKeyLabel);
+        settingsPanel.add(recordKeyButton);
+        settingsPanel.add(replayKeyLabel);
+        settingsPanel.add(replayKeyButton);
         settingsPanel.add(new JPanel(), "span 2, pushy");
 
+        //more settings than fit the window height
+        JScrollPane settingsScrollPane = new JScrollPane(settingsPanel);
+        settingsScrollPane.setBorder(null);
+        settingsScrollPane.setHorizontalScrollBarPolicy(ScrollPaneConstants.HORIZONTAL_SCROLLBAR_NEVER);
+        settingsScrollPane.getVerticalScrollBar().setUnitIncrement(16);
+
         //------------------------------------------------------------------------------
         saveConfigPanel = new JPanel();
         saveConfigPanel.setLayout(new MigLayout(
@@ -110,7 +247,18 @@ public class ClickerUIDrawer extends JPanel {
                 "[left][fill]"
         ));
 
+        //whole template library in one zip, e.g. to move it to another machine
+        JLabel exportLabel = new JLabel("Library:");
+        exportButton = new JButton("Export all...");
+        exportButton.addActionListener(_ -> exportTemplates());
+        exportProgressBar = new JProgressBar(0, 100);
+        exportProgressBar.setVisible(false);
+        exportStatusLabel = new JLabel(" ");
 
+        saveConfigPanel.add(exportLabel);
+        saveConfigPanel.add(exportButton);
+        saveConfigPanel.add(exportProgressBar, "span 2, growx");
+        saveConfigPanel.add(exportStatusLabel, "span 2");
 
         //------------------------------------------------------------------------------
         loadConfigPanel = new JPanel();
@@ -119,8 +267,27 @@ public class ClickerUIDrawer extends JPanel {
                 "[left][fill]"
         ));
 
+        JLabel conflictLabel = new JLabel("Existing:");
+        conflictPolicySelector = new JComboBox<>(TemplateArchive.ConflictPolicy.values());
+        conflictPolicySelector.setSelectedItem(TemplateArchive.ConflictPolicy.RENAME);
+        conflictPolicySelector.setToolTipText("What to do with an imported template whose name is already saved");
+
+        JLabel importLabel = new JLabel("Library:");
+        importButton = new JButton("Import...");
+        importButton.addActionListener(_ -> importTemplates());
+        importProgressBar = new JProgressBar(0, 100);
+        importProgressBar.setVisible(false);
+        importStatusLabel = new JLabel(" ");
+
+        loadConfigPanel.add(conflictLabel);
+        loadConfigPanel.add(conflictPolicySelector);
+        loadConfigPanel.add(importLabel);
+        loadConfigPanel.add(importButton);
+        loadConfigPanel.add(importProgressBar, "span 2, growx");
+        loadConfigPanel.add(importStatusLabel, "span 2");
+
         //------------------------------------------------------------------------------
-        drawerCardContainer.add(settingsPanel, "Settings");
+        drawerCardContainer.add(settingsScrollPane, "Settings");
         drawerCardContainer.add(saveConfigPanel, "Save");
         drawerCardContainer.add(loadConfigPanel, "Load");
 
@@ -131,14 +298,16 @@ public class ClickerUIDrawer extends JPanel {
     }
 
     public void showSelectedDrawerPanel(String panelName) {
-        if (!drawerContainerVisible){
-            toggleDrawerVisible();
-        }
         CardLayout cardLayout = (CardLayout) drawerCardContainer.getLayout();
         cardLayout.show(drawerCardContainer,panelName);
 
         setDrawerTitle(panelName);
         setPanelButtonSelected(panelName);
+
+        //after switching the card, so the drawer slides in showing it
+        if (!drawerContainerVisible){
+            toggleDrawerVisible();
+        }
     }
 
     private void setDrawerTitle(String panelName){
@@ -246,10 +415,250 @@ public class ClickerUIDrawer extends JPanel {
 
     private void toggleDrawerVisible(){
         drawerContainerVisible = !drawerContainerVisible;
-        setVisible(drawerContainerVisible);
+
+        //drop a pending rebind when the drawer closes
+        if (!drawerContainerVisible){
+            hotkeys.cancelCapture();
+            refreshHotkeyButtons();
+        }
+        startSlide();
+    }
+
+    //toggling mid-slide just turns the running slide around
+    private void startSlide(){
+        if (frameClock.isRunning()) return;
+
+        if (drawerContainerVisible){
+            setVisible(true);
+            validate(); //lay out before the snapshots are taken
+        }
+        renderBackdrop();
+        renderStrip();
+        slideX = slideOffset();
+        //opaque while sliding: repaints start here, the window below isn't repainted every frame.
+        //no snapshots (no screen): slide painting live instead
+        setOpaque(backdropImage != null && stripImage != null);
+        lastFrameNanos = System.nanoTime();
+        frameClock.start();
+        repaint(); //the window dims (or the drawer starts leaving) in one full paint, then only the strip
+    }
+
+    //one frame clock tick: advance by the time actually elapsed, so a late tick doesn't slow the slide down
+    private void onFrame(){
+        long now = System.nanoTime();
+        double step = (now - lastFrameNanos) / (double) SLIDE_NANOS;
+        lastFrameNanos = now;
+        openFraction = drawerContainerVisible ? Math.min(1, openFraction + step) : Math.max(0, openFraction - step);
+
+        int previousX = slideX;
+        slideX = slideOffset();
+        int left = Math.min(previousX, slideX);
+        int right = Math.max(previousX, slideX) + drawerContainer.getWidth();
+        repaint(left, 0, right - left, getHeight());
+
+        if (openFraction == (drawerContainerVisible ? 1 : 0)){
+            frameClock.stop();
+            setOpaque(false);
+            if (drawerContainerVisible) repaint(); //back to live painting: show what changed below meanwhile
+            else setVisible(false);
+        }
+    }
+
+    //ease out: fast start, soft landing
+    private int slideOffset(){
+        double eased = 1 - Math.pow(1 - openFraction, 3);
+        return (int) Math.round(-drawerContainer.getWidth() * (1 - eased));
+    }
+
+    //the window below the drawer, dimmed. the images are kept and reused by later slides
+    private void renderBackdrop(){
+        backdropImage = render(backdropImage, getWidth(), getHeight(), g -> {
+            JLayeredPane layeredPane = getRootPane().getLayeredPane();
+            g.translate(layeredPane.getX() - getX(), layeredPane.getY() - getY());
+            layeredPane.paint(g);
+            g.translate(getX() - layeredPane.getX(), getY() - layeredPane.getY());
+            g.setColor(BACKDROP_COLOR);
+            g.fillRect(0, 0, getWidth(), getHeight());
+        });
+    }
+
+    private void renderStrip(){
+        stripImage = render(stripImage, drawerContainer.getWidth(), drawerContainer.getHeight(), drawerContainer::paint);
+    }
+
+    //(re)create the image if it doesn't fit this screen or size, then paint into it; null if there is no screen
+    private VolatileImage render(VolatileImage image, int width, int height, Consumer<Graphics2D> painter){
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (gc == null || width <= 0 || height <= 0 || getRootPane() == null) return null;
+        do {
+            if (image == null || image.getWidth() != width || image.getHeight() != height
+                    || image.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE){
+                if (image != null) image.flush();
+                image = gc.createCompatibleVolatileImage(width, height);
+            }
+            Graphics2D g = image.createGraphics();
+            try {
+                painter.accept(g);
+            } finally {
+                g.dispose();
+            }
+        } while (image.contentsLost());
+        return image;
+    }
+
+    //false if there is no snapshot: the caller paints live instead
+    private boolean drawSnapshot(Graphics g, boolean backdrop){
+        VolatileImage image = backdrop ? backdropImage : stripImage;
+        if (image != null && image.validate(getGraphicsConfiguration()) != VolatileImage.IMAGE_OK){
+            //contents lost (e.g. display change): paint it again
+            if (backdrop) renderBackdrop();
+            else renderStrip();
+            image = backdrop ? backdropImage : stripImage;
+        }
+        if (image == null) return false;
+        g.drawImage(image, backdrop ? 0 : slideX, 0, null);
+        return true;
+    }
+
+    private JButton buildHotkeyButton(HotkeyAction action){
+        JButton button = new JButton(HotkeyEngine.keyName(hotkeys.getKey(action, null)));
+        button.setToolTipText("Click, then press a key or a middle/side mouse button (Esc clears)");
+        button.addActionListener(_ -> {
+            button.setText("Press a key...");
+            //key arrives on the native hook thread
+            hotkeys.captureNextKey(keyCode -> SwingUtilities.invokeLater(() -> {
+                if (keyCode == NativeKeyEvent.VC_ESCAPE) hotkeys.unbind(action, null);
+                else hotkeys.bind(action, null, keyCode);
+                refreshHotkeyButtons(); //binding a key takes it away from any other action
+            }));
+        });
+        return button;
+    }
+
+    private void refreshHotkeyButtons(){
+        toggleKeyButton.setText(HotkeyEngine.keyName(hotkeys.getKey(HotkeyAction.TOGGLE, null)));
+        holdKeyButton.setText(HotkeyEngine.keyName(hotkeys.getKey(HotkeyAction.HOLD, null)));
+        burstKeyButton.setText(HotkeyEngine.keyName(hotkeys.getKey(HotkeyAction.BURST, null)));
+        recordKeyButton.setText(HotkeyEngine.keyName(hotkeys.getKey(HotkeyAction.RECORD, null)));
+        replayKeyButton.setText(HotkeyEngine.keyName(hotkeys.getKey(HotkeyAction.REPLAY, null)));
+        hotkeyChangeListener.run();
+    }
+
+    private void exportTemplates(){
+        if (exportWorker != null){
+            exportWorker.cancel(true);
+            return;
+        }
+        JFileChooser chooser = buildArchiveChooser();
+        chooser.setSelectedFile(new File("croissant-templates." + TemplateArchive.FILE_EXTENSION));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path archive = withArchiveExtension(chooser.getSelectedFile().toPath());
+
+        exportWorker = new SwingWorker<Integer, Void>() {
+            @Override
+            protected Integer doInBackground() throws IOException {
+                return TemplateArchive.exportTo(archive, this::setProgress);
+            }
+
+            @Override
+            protected void done() {
+                exportWorker = null;
+                finishTransfer(exportButton, "Export all...", exportProgressBar);
+                try {
+                    exportStatusLabel.setText("Exported " + get() + " templates");
+                } catch (CancellationException e) {
+                    exportStatusLabel.setText("Export cancelled");
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Error exporting templates: " + e.getCause());
+                    exportStatusLabel.setText("Export failed");
+                }
+            }
+        };
+        startTransfer(exportWorker, exportButton, exportProgressBar, exportStatusLabel);
+    }
+
+    private void importTemplates(){
+        if (importWorker != null){
+            importWorker.cancel(true);
+            return;
+        }
+        JFileChooser chooser = buildArchiveChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        Path archive = chooser.getSelectedFile().toPath();
+        TemplateArchive.ConflictPolicy policy = (TemplateArchive.ConflictPolicy) conflictPolicySelector.getSelectedItem();
+
+        importWorker = new SwingWorker<TemplateArchive.ImportResult, Void>() {
+            @Override
+            protected TemplateArchive.ImportResult doInBackground() throws IOException {
+                return TemplateArchive.importFrom(archive, policy, this::setProgress);
+            }
+
+            @Override
+            protected void done() {
+                importWorker = null;
+                finishTransfer(importButton, "Import...", importProgressBar);
+                try {
+                    importStatusLabel.setText(get().toString());
+                } catch (CancellationException e) {
+                    importStatusLabel.setText("Import cancelled, earlier templates kept");
+                } catch (InterruptedException | ExecutionException e) {
+                    System.err.println("Error importing templates: " + e.getCause());
+                    importStatusLabel.setText("Import failed");
+                }
+            }
+        };
+        startTransfer(importWorker, importButton, importProgressBar, importStatusLabel);
+    }
+
+    //progress arrives as SwingWorker "progress" events, already on the EDT
+    private void startTransfer(SwingWorker<?, ?> worker, JButton button, JProgressBar progressBar, JLabel statusLabel){
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) progressBar.setValue((Integer) e.getNewValue());
+        });
+        button.setText("Cancel");
+        progressBar.setValue(0);
+        progressBar.setVisible(true);
+        statusLabel.setText(" ");
+        worker.execute();
+    }
+
+    private void finishTransfer(JButton button, String text, JProgressBar progressBar){
+        button.setText(text);
+        progressBar.setVisible(false);
+    }
+
+    private JFileChooser buildArchiveChooser(){
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Template archive (*." + TemplateArchive.FILE_EXTENSION + ")",
+                TemplateArchive.FILE_EXTENSION));
+        return chooser;
+    }
+
+    private static Path withArchiveExtension(Path path){
+        String fileName = path.getFileName().toString();
+        return fileName.toLowerCase().endsWith("." + TemplateArchive.FILE_EXTENSION)
+                ? path : path.resolveSibling(fileName + "." + TemplateArchive.FILE_EXTENSION);
+    }
+
+    public void setHotkeyChangeListener(Runnable listener){
+        hotkeyChangeListener = listener;
     }
 
     public void setThemeSelector(String theme){
         themeSelector.setSelectedItem(theme);
     }
+
+    //sync timing controls after a config change (e.g. a loaded template)
+    public void refreshTimingFields(){
+        timingModeSelector.setSelectedItem(config.getTimingMode());
+        timingJitterSpinner.setValue(config.getTimingJitter());
+        holdMillisSpinner.setValue(config.getHoldMillis());
+        holdJitterSpinner.setValue(config.getHoldJitter());
+    }
+
+    public void refreshBurstFields(){
+        burstCountSpinner.setValue(config.getBurstCount());
+        burstSpacingSpinner.setValue(config.getBurstSpacingMicros());
+        burstCooldownSpinner.setValue(config.getBurstCooldownMillis());
+    }
 }
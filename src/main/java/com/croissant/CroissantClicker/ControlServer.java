@@ -0,0 +1,465 @@
+package com.croissant.CroissantClicker;
+
+import java.awt.event.InputEvent;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+//local control channel for test harnesses: start/stop, set config fields, load templates and stream click counts.
+//one NIO selector thread serves every client, over a Unix domain socket and/or a loopback TCP port:
+//  -Dcroissant.control.socket=/tmp/croissant.sock    -Dcroissant.control.port=7777
+//
+//binary protocol, big endian, any number of requests may be in flight (pipelined); responses carry the request id.
+//request:   length (u16, bytes after it) | id (u32) | op (u8) | payload
+//response:  length (u16, bytes after it) | id (u32) | status (u8) | payload
+//status:    0 OK, 1 ERROR (payload: message, u16 length + UTF-8), 2 EVENT (streamed, id of the SUBSCRIBE)
+//ops:       1 PING
+//           2 START                                  starts a run, like the toggle hotkey
+//           3 STOP                                   returns once no click is in flight
+//           4 SET       field (u8) | value (i32)     field tags as in ProfileStore; booleans 0/1, timing mode ordinal
+//           5 STATUS    -> running (u8) | cps (i32) | run clicks (i64) | session clicks (i64)
+//           6 LOAD      name (u16 length + UTF-8)    loads a saved template (answered once applied)
+//           7 SUBSCRIBE period millis (u16)          EVENT running (u8) | run clicks (i64) | session clicks (i64),
+//                                                    at most once per period and only when something changed
+//           8 UNSUBSCRIBE
+//everything except LOAD is answered on the selector thread itself, without touching the disk.
+public class ControlServer implements AutoCloseable {
+
+    public static final String SOCKET_PROPERTY = "croissant.control.socket";
+    public static final String PORT_PROPERTY = "croissant.control.port";
+
+    static final byte OP_PING = 1;
+    static final byte OP_START = 2;
+    static final byte OP_STOP = 3;
+    static final byte OP_SET = 4;
+    static final byte OP_STATUS = 5;
+    static final byte OP_LOAD = 6;
+    static final byte OP_SUBSCRIBE = 7;
+    static final byte OP_UNSUBSCRIBE = 8;
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+    static final byte STATUS_EVENT = 2;
+
+    //id (u32) + op/status (u8)
+    private static final int FRAME_HEADER = 5;
+    private static final int READ_BUFFER_SIZE = 2 + 0xFFFF;
+    private static final long NANOS_PER_MILLI = 1_000_000L;
+
+    private final ClickerConfig config;
+    private final ClickerLogic logic;
+    private final Selector selector;
+    private final List<ServerSocketChannel> servers = new ArrayList<>();
+    private final List<Connection> connections = new ArrayList<>(); //selector thread only
+    //work finished elsewhere (template loads, start/stop) handed back to the selector thread
+    private final ConcurrentLinkedQueue<Runnable> completions = new ConcurrentLinkedQueue<>();
+    //start/stop can block (stop waits up to 100 ms for a held button): one thread, so they apply in arrival order
+    private final ExecutorService runControl = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = Executors.defaultThreadFactory().newThread(runnable);
+        thread.setName("control-run");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Path socketFile;
+    private Thread thread;
+    private volatile boolean open = true;
+
+    //one client: read buffer holding partial frames, write buffer holding responses not yet sent
+    private static final class Connection {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        ByteBuffer out = ByteBuffer.allocate(4096);
+        int subscriptionId;
+        long subscriptionPeriodNanos; //0 = not subscribed
+        long nextEventNanos;
+        long lastRunClicks = -1;
+        long lastSessionClicks = -1;
+        boolean lastRunning;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    private ControlServer(ClickerConfig config, ClickerLogic logic) throws IOException {
+        this.config = config;
+        this.logic = logic;
+        this.selector = Selector.open();
+    }
+
+    //open the endpoints named by the system properties; null when neither is set
+    public static ControlServer startIfConfigured(ClickerConfig config, ClickerLogic logic) {
+        String socket = System.getProperty(SOCKET_PROPERTY);
+        Integer port = Integer.getInteger(PORT_PROPERTY);
+        if ((socket == null || socket.isBlank()) && port == null) return null;
+
+        ControlServer server = null;
+        try {
+            server = new ControlServer(config, logic);
+            if (socket != null && !socket.isBlank()) server.bindUnixSocket(Path.of(socket));
+            if (port != null) server.bindLoopback(port);
+            server.start();
+            return server;
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("Error starting control server: " + e.getMessage());
+            if (server != null) server.closeAll(); //don't leave one endpoint half open
+            return null;
+        }
+    }
+
+    private void bindUnixSocket(Path path) throws IOException {
+        Files.deleteIfExists(path); //stale socket file of an earlier instance
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(path));
+        socketFile = path;
+        register(server);
+    }
+
+    private void bindLoopback(int port) throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port)); //local tooling only, no auth
+        register(server);
+    }
+
+    private void register(ServerSocketChannel server) throws IOException {
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        servers.add(server);
+    }
+
+    public int getPort() {
+        for (ServerSocketChannel server : servers) {
+            try {
+                if (server.getLocalAddress() instanceof InetSocketAddress address) return address.getPort();
+            } catch (IOException _) {
+                //closed
+            }
+        }
+        return -1;
+    }
+
+    private void start() {
+        thread = new Thread(this::selectLoop, "control-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        open = false;
+        selector.wakeup();
+        try {
+            if (thread != null) thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void selectLoop() {
+        try {
+            while (open) {
+                long now = System.nanoTime();
+                long timeoutMillis = nextEventDelayMillis(now);
+                if (timeoutMillis < 0) selector.select();
+                else if (timeoutMillis == 0) selector.selectNow();
+                else selector.select(timeoutMillis);
+
+                Runnable completion;
+                while ((completion = completions.poll()) != null) {
+                    completion.run();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept((ServerSocketChannel) key.channel());
+                        continue;
+                    }
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isReadable()) read(connection);
+                        if (key.isValid() && key.isWritable()) flush(connection);
+                    } catch (IOException e) {
+                        disconnect(connection);
+                    }
+                }
+                publishEvents(System.nanoTime());
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            System.err.println("Control server stopped: " + e.getMessage());
+        } finally {
+            closeAll();
+        }
+    }
+
+    private void accept(ServerSocketChannel server) throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        if (channel.getRemoteAddress() instanceof InetSocketAddress) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true); //small frames must not wait for Nagle
+        }
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        Connection connection = new Connection(channel, key);
+        key.attach(connection);
+        connections.add(connection);
+    }
+
+    //handle every complete frame received so far, then send all their responses with one write
+    private void read(Connection connection) throws IOException {
+        ByteBuffer in = connection.in;
+        if (connection.channel.read(in) < 0) {
+            disconnect(connection);
+            return;
+        }
+        in.flip();
+        while (in.remaining() >= 2) {
+            int length = in.getShort(in.position()) & 0xFFFF;
+            if (length < FRAME_HEADER) throw new IOException("malformed frame");
+            if (in.remaining() < 2 + length) break;
+
+            int frameEnd = in.position() + 2 + length;
+            in.position(in.position() + 2);
+            int id = in.getInt();
+            byte op = in.get();
+            ByteBuffer payload = in.slice(in.position(), frameEnd - in.position());
+            in.position(frameEnd);
+            try {
+                handle(connection, id, op, payload);
+            } catch (RuntimeException e) { //short payload, bad value
+                error(connection, id, e.getMessage() == null ? e.toString() : e.getMessage());
+            }
+        }
+        in.compact();
+        flush(connection);
+    }
+
+    private void handle(Connection connection, int id, byte op, ByteBuffer payload) {
+        switch (op) {
+            case OP_PING -> ok(connection, id);
+            case OP_START -> {
+                long received = System.nanoTime();
+                reply(connection, id, CompletableFuture.runAsync(() -> {
+                    try {
+                        logic.start(received);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }, runControl));
+            }
+            case OP_STOP -> reply(connection, id, CompletableFuture.runAsync(logic::stop, runControl));
+            case OP_SET -> {
+                set(payload.get(), payload.getInt());
+                ok(connection, id);
+            }
+            case OP_STATUS -> {
+                ByteBuffer out = begin(connection, id, STATUS_OK, 1 + 4 + 8 + 8);
+                out.put((byte) (logic.isRunning() ? 1 : 0)).putInt(config.getCps())
+                        .putLong(config.getClickCount()).putLong(config.getSessionClickCount());
+            }
+            case OP_LOAD -> load(connection, id, readString(payload));
+            case OP_SUBSCRIBE -> {
+                int periodMillis = Math.max(1, payload.getShort() & 0xFFFF);
+                connection.subscriptionId = id;
+                connection.subscriptionPeriodNanos = periodMillis * NANOS_PER_MILLI;
+                connection.nextEventNanos = System.nanoTime();
+                connection.lastRunClicks = -1; //first event goes out right away
+                ok(connection, id);
+            }
+            case OP_UNSUBSCRIBE -> {
+                connection.subscriptionPeriodNanos = 0;
+                ok(connection, id);
+            }
+            default -> error(connection, id, "unknown op " + op);
+        }
+    }
+
+    private void set(byte field, int value) {
+        switch (field) {
+            case ProfileStore.FIELD_CPS -> config.setCps(checkRange(value, ClickerConfig.CPS_MIN, ClickerConfig.CPS_MAX));
+            case ProfileStore.FIELD_CLICK_LIMIT -> config.setClickLimit(checkRange(value, ClickerConfig.CLICK_LIMIT_MIN, ClickerConfig.CLICK_LIMIT_MAX));
+            case ProfileStore.FIELD_CLICK_LIMIT_MODE -> config.setClickLimitMode(checkRange(value, 0, 1) == 1);
+            case ProfileStore.FIELD_MOUSE_BUTTON -> {
+                if (value != InputEvent.BUTTON1_DOWN_MASK && value != InputEvent.BUTTON2_DOWN_MASK
+                        && value != InputEvent.BUTTON3_DOWN_MASK) {
+                    throw new IllegalArgumentException("mouse button must be an InputEvent BUTTON1-3 mask");
+                }
+                config.setMouseButton(value);
+            }
+            case ProfileStore.FIELD_TIMING_MODE -> config.setTimingMode(TimingMode.values()[checkRange(value, 0, TimingMode.values().length - 1)]);
+            case ProfileStore.FIELD_TIMING_JITTER -> config.setTimingJitter(checkRange(value, ClickerConfig.JITTER_MIN, ClickerConfig.JITTER_MAX));
+            case ProfileStore.FIELD_HOLD_MILLIS -> config.setHoldMillis(checkRange(value, ClickerConfig.HOLD_MILLIS_MIN, ClickerConfig.HOLD_MILLIS_MAX));
+            case ProfileStore.FIELD_HOLD_JITTER -> config.setHoldJitter(checkRange(value, ClickerConfig.JITTER_MIN, ClickerConfig.JITTER_MAX));
+            case ProfileStore.FIELD_BURST_COUNT -> config.setBurstCount(checkRange(value, ClickerConfig.BURST_COUNT_MIN, ClickerConfig.BURST_COUNT_MAX));
+            case ProfileStore.FIELD_BURST_SPACING_MICROS -> config.setBurstSpacingMicros(checkRange(value, ClickerConfig.BURST_SPACING_MICROS_MIN, ClickerConfig.BURST_SPACING_MICROS_MAX));
+            case ProfileStore.FIELD_BURST_COOLDOWN_MILLIS -> config.setBurstCooldownMillis(checkRange(value, ClickerConfig.BURST_COOLDOWN_MILLIS_MIN, ClickerConfig.BURST_COOLDOWN_MILLIS_MAX));
+            default -> throw new IllegalArgumentException("field " + field + " cannot be set");
+        }
+    }
+
+    private static int checkRange(int value, int min, int max) {
+        if (value < min || value > max) {
+            throw new IllegalArgumentException("value " + value + " not in " + min + ".." + max);
+        }
+        return value;
+    }
+
+    //disk I/O stays off the selector thread, so other clients' commands are not held up behind it
+    private void load(Connection connection, int id, String name) {
+        if (!SaveDataManager.getConfigTemplateNames().contains(name)) {
+            error(connection, id, "no saved profile named " + name);
+            return;
+        }
+        reply(connection, id, CompletableFuture.runAsync(() -> SaveDataManager.load(config, name)));
+    }
+
+    //answer once work running off the selector thread is done; the reply is written back on the selector thread
+    private void reply(Connection connection, int id, CompletableFuture<Void> work) {
+        work.whenComplete((_, failure) -> {
+            completions.add(() -> {
+                if (!connection.channel.isOpen()) return;
+                if (failure == null) ok(connection, id);
+                else error(connection, id, failure.getMessage());
+                try {
+                    flush(connection);
+                } catch (IOException e) {
+                    disconnect(connection);
+                }
+            });
+            selector.wakeup();
+        });
+    }
+
+    //push a count update to every subscriber that is due and has something new
+    private void publishEvents(long now) {
+        if (connections.isEmpty()) return;
+        boolean running = logic.isRunning();
+        long runClicks = config.getClickCount();
+        long sessionClicks = config.getSessionClickCount();
+        for (int i = connections.size() - 1; i >= 0; i--) {
+            Connection connection = connections.get(i);
+            if (connection.subscriptionPeriodNanos == 0 || now - connection.nextEventNanos < 0) continue;
+            connection.nextEventNanos = now + connection.subscriptionPeriodNanos; //sent or not, check again then
+            if (runClicks == connection.lastRunClicks && sessionClicks == connection.lastSessionClicks
+                    && running == connection.lastRunning) continue;
+
+            connection.lastRunClicks = runClicks;
+            connection.lastSessionClicks = sessionClicks;
+            connection.lastRunning = running;
+            ByteBuffer out = begin(connection, connection.subscriptionId, STATUS_EVENT, 1 + 8 + 8);
+            out.put((byte) (running ? 1 : 0)).putLong(runClicks).putLong(sessionClicks);
+            try {
+                flush(connection);
+            } catch (IOException e) {
+                disconnect(connection);
+            }
+        }
+    }
+
+    //how long the selector may sleep before a subscriber is due: -1 no subscribers (block), 0 due now
+    private long nextEventDelayMillis(long now) {
+        long earliest = Long.MAX_VALUE;
+        for (Connection connection : connections) {
+            if (connection.subscriptionPeriodNanos == 0) continue;
+            earliest = Math.min(earliest, connection.nextEventNanos - now);
+        }
+        if (earliest == Long.MAX_VALUE) return -1;
+        return earliest <= 0 ? 0 : (earliest + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI;
+    }
+
+    //--- framing ----------------------------------------------------------------------------------------------------
+
+    private ByteBuffer begin(Connection connection, int id, byte status, int payloadLength) {
+        ensureWritable(connection, 2 + FRAME_HEADER + payloadLength);
+        ByteBuffer out = connection.out;
+        out.putShort((short) (FRAME_HEADER + payloadLength)).putInt(id).put(status);
+        return out;
+    }
+
+    private void ok(Connection connection, int id) {
+        begin(connection, id, STATUS_OK, 0);
+    }
+
+    private void error(Connection connection, int id, String message) {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, 0xFFFF - FRAME_HEADER - 2);
+        ByteBuffer out = begin(connection, id, STATUS_ERROR, 2 + length);
+        out.putShort((short) length).put(bytes, 0, length);
+    }
+
+    private static void ensureWritable(Connection connection, int bytes) {
+        if (connection.out.remaining() >= bytes) return;
+        ByteBuffer grown = ByteBuffer.allocate(Math.max(connection.out.capacity() * 2, connection.out.position() + bytes));
+        connection.out.flip();
+        grown.put(connection.out);
+        connection.out = grown;
+    }
+
+    private static String readString(ByteBuffer payload) {
+        int length = payload.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    //write what the socket takes now; wait for OP_WRITE only if the client isn't keeping up
+    private void flush(Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        if (out.position() == 0) return;
+        out.flip();
+        connection.channel.write(out);
+        out.compact();
+        int interest = out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        if (connection.key.interestOps() != interest) connection.key.interestOps(interest);
+    }
+
+    private void disconnect(Connection connection) {
+        connections.remove(connection);
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException _) {
+            //already gone
+        }
+    }
+
+    private void closeAll() {
+        runControl.shutdown();
+        for (Connection connection : new ArrayList<>(connections)) {
+            disconnect(connection);
+        }
+        for (ServerSocketChannel server : servers) {
+            try {
+                server.close();
+            } catch (IOException _) {
+                //closing anyway
+            }
+        }
+        try {
+            selector.close();
+            if (socketFile != null) Files.deleteIfExists(socketFile);
+        } catch (IOException e) {
+            System.err.println("Error closing control server: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.croissant.CroissantClicker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//in-memory backend: counts presses/releases (and cursor moves/keys) without touching the display (benchmarks,
+//headless tests)
+public class CountingClickSink implements ClickSink {
+
+    private final AtomicLong pressCount = new AtomicLong();
+    private final AtomicLong releaseCount = new AtomicLong();
+    private final AtomicLong moveCount = new AtomicLong();
+    private final AtomicLong keyPressCount = new AtomicLong();
+    private final AtomicLong keyReleaseCount = new AtomicLong();
+
+    @Override
+    public void press(int mouseButton) {
+        pressCount.incrementAndGet();
+    }
+
+    @Override
+    public void release(int mouseButton) {
+        releaseCount.incrementAndGet();
+    }
+
+    @Override
+    public void moveTo(int x, int y) {
+        moveCount.incrementAndGet();
+    }
+
+    @Override
+    public void keyPress(int keyCode) {
+        keyPressCount.incrementAndGet();
+    }
+
+    @Override
+    public void keyRelease(int keyCode) {
+        keyReleaseCount.incrementAndGet();
+    }
+
+    public long getPressCount() {
+        return pressCount.get();
+    }
+
+    public long getReleaseCount() {
+        return releaseCount.get();
+    }
+
+    public long getMoveCount() {
+        return moveCount.get();
+    }
+
+    public long getKeyPressCount() {
+        return keyPressCount.get();
+    }
+
+    public long getKeyReleaseCount() {
+        return keyReleaseCount.get();
+    }
+
+    public void reset() {
+        pressCount.set(0);
+        releaseCount.set(0);
+        moveCount.set(0);
+        keyPressCount.set(0);
+        keyReleaseCount.set(0);
+    }
+
+    @Override
+    public String getName() {
+        return "counting";
+    }
+}
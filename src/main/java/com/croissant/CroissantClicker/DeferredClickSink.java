@@ -0,0 +1,65 @@
+package com.croissant.CroissantClicker;
+
+import java.util.concurrent.CompletableFuture;
+
+//click sink that is still being created in the background (Robot/uinput setup costs 50-200ms at startup).
+//the window comes up without waiting for it; the first click blocks only if the backend is not ready yet.
+public class DeferredClickSink implements ClickSink {
+
+    private final CompletableFuture<ClickSink> future;
+    private volatile ClickSink resolved;
+
+    public DeferredClickSink(CompletableFuture<ClickSink> future) {
+        this.future = future;
+    }
+
+    public CompletableFuture<ClickSink> getFuture() {
+        return future;
+    }
+
+    private ClickSink delegate() {
+        ClickSink sink = resolved;
+        if (sink == null) {
+            sink = future.join();
+            resolved = sink;
+        }
+        return sink;
+    }
+
+    @Override
+    public void press(int mouseButton) {
+        delegate().press(mouseButton);
+    }
+
+    @Override
+    public void release(int mouseButton) {
+        delegate().release(mouseButton);
+    }
+
+    @Override
+    public void moveTo(int x, int y) {
+        delegate().moveTo(x, y);
+    }
+
+    @Override
+    public void keyPress(int keyCode) {
+        delegate().keyPress(keyCode);
+    }
+
+    @Override
+    public void keyRelease(int keyCode) {
+        delegate().keyRelease(keyCode);
+    }
+
+    @Override
+    public String getName() {
+        ClickSink sink = resolved;
+        if (sink == null && future.isDone()) sink = delegate();
+        return sink != null ? sink.getName() : "pending";
+    }
+
+    @Override
+    public void close() {
+        if (future.isDone()) delegate().close();
+    }
+}
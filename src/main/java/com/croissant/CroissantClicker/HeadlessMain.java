@@ -0,0 +1,439 @@
+package com.croissant.CroissantClicker;
+
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+//command line entry point: drives ClickerLogic straight from flags, without Swing, FlatLaf, the UI assets or the
+//global hotkey hook (JNativeHook pulls in javax.swing). meant for scripts and CI, works under Xvfb.
+//exits 0 when the run finished, 1 on a runtime error, 2 on bad arguments.
+public class HeadlessMain {
+
+    private static final String USAGE = """
+            usage: CroissantClicker --headless [options]
+              --cps <n>             clicks per second (%d-%d)
+              --button <name>       left | right | middle
+              --limit <n>           stop after n clicks (%d-%d)
+              --duration <seconds>  stop after this long (decimals allowed)
+              --profile <name>      load a saved config template first; flags override it
+              --timing <mode>       fixed | gaussian | uniform | poisson | empirical
+              --sink <name>         auto | robot | uinput | counting
+              --job <cps>[x<n>][@<x>,<y>]
+                                    run a click job (n clicks, at a fixed position) on the click engine
+                                    instead of the single clicker; repeat for concurrent jobs
+              --replay <name>       replay a recorded macro (<save dir>/macros/<name>.macro) instead of clicking
+              --loops <n>           replay this many times, 0 = until interrupted (default 1)
+              --speed <factor>      replay speed, 2 = twice as fast (default 1)
+              --stats               print interval/latency histograms when done
+              --history             print run totals per day and per profile, then exit
+              --export <file.zip>   write all saved config templates to one archive, then exit
+              --import <file.zip>   add the templates of an archive, then exit
+              --conflict <policy>   imported name already saved: skip | overwrite | rename (default)
+            without --limit or --duration the run continues until interrupted (Ctrl+C)"""
+            .formatted(ClickerConfig.CPS_MIN, ClickerConfig.CPS_MAX,
+                    ClickerConfig.CLICK_LIMIT_MIN, ClickerConfig.CLICK_LIMIT_MAX);
+
+    //set by the shutdown hook: System.exit must not be called while the JVM is already exiting
+    private static volatile boolean shuttingDown = false;
+
+    public static void main(String[] args) {
+        int exitCode = run(args);
+        if (!shuttingDown) {
+            System.exit(exitCode);
+        }
+    }
+
+    static int run(String[] args) {
+        ClickerConfig config = new ClickerConfig();
+        String sinkName = System.getProperty(ClickSinks.SINK_PROPERTY, ClickSinks.SINK_DEFAULT);
+        long durationMillis = 0;
+        boolean stats = false;
+        Path exportArchive = null;
+        Path importArchive = null;
+        TemplateArchive.ConflictPolicy conflictPolicy = TemplateArchive.ConflictPolicy.RENAME;
+        List<String> jobSpecs = new ArrayList<>();
+        List<ClickJob> jobs = new ArrayList<>();
+        String macroName = null;
+        int loops = 1;
+        double speed = 1.0;
+
+        try {
+            //profile first so the other flags override it, whatever their order
+            for (int i = 0; i < args.length; i++) {
+                if ("--profile".equals(args[i])) {
+                    String profile = value(args, i + 1);
+                    if (!SaveDataManager.getConfigTemplateNames().contains(profile)) {
+                        throw new IllegalArgumentException("no saved profile named " + profile);
+                    }
+                    SaveDataManager.load(config, profile);
+                }
+            }
+
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--headless" -> { }
+                    case "--profile" -> i++; //already applied
+                    case "--cps" -> config.setCps(parseInt(args, ++i, ClickerConfig.CPS_MIN, ClickerConfig.CPS_MAX));
+                    case "--button" -> config.setMouseButton(parseButton(value(args, ++i)));
+                    case "--limit" -> {
+                        config.setClickLimit(parseInt(args, ++i, ClickerConfig.CLICK_LIMIT_MIN, ClickerConfig.CLICK_LIMIT_MAX));
+                        config.setClickLimitMode(true);
+                    }
+                    case "--duration" -> {
+                        double seconds = Double.parseDouble(value(args, ++i));
+                        if (!(seconds > 0)) throw new IllegalArgumentException("--duration must be > 0");
+                        durationMillis = Math.max(1, Math.round(seconds * 1000));
+                    }
+                    case "--timing" -> {
+                        String name = value(args, ++i);
+                        TimingMode mode = TimingMode.fromName(name, null);
+                        if (mode == null) throw new IllegalArgumentException("unknown timing mode " + name);
+                        config.setTimingMode(mode);
+                    }
+                    case "--sink" -> sinkName = value(args, ++i);
+                    case "--job" -> jobSpecs.add(value(args, ++i));
+                    case "--replay" -> macroName = value(args, ++i);
+                    case "--loops" -> loops = parseInt(args, ++i, 0, Integer.MAX_VALUE);
+                    case "--speed" -> {
+                        speed = Double.parseDouble(value(args, ++i));
+                        if (!(speed > 0) || Double.isInfinite(speed)) throw new IllegalArgumentException("--speed must be > 0");
+                    }
+                    case "--stats" -> stats = true;
+                    case "--history" -> {
+                        return printHistory();
+                    }
+                    case "--export" -> exportArchive = Path.of(value(args, ++i));
+                    case "--import" -> importArchive = Path.of(value(args, ++i));
+                    case "--conflict" -> {
+                        String name = value(args, ++i);
+                        conflictPolicy = TemplateArchive.ConflictPolicy.fromName(name, null);
+                        if (conflictPolicy == null) throw new IllegalArgumentException("unknown conflict policy " + name);
+                    }
+                    case "--help", "-h" -> {
+                        System.out.println(USAGE);
+                        return 0;
+                    }
+                    default -> throw new IllegalArgumentException("unknown option " + args[i]);
+                }
+            }
+            //after the loop so --button applies wherever it appears
+            for (String spec : jobSpecs) {
+                jobs.add(parseJob(spec, jobs.size() + 1, config.getMouseButton()));
+            }
+        } catch (IllegalArgumentException e) { //NumberFormatException included
+            System.err.println("Error: " + e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+        if (exportArchive != null || importArchive != null) {
+            return transferTemplates(exportArchive, importArchive, conflictPolicy);
+        }
+
+        if (macroName != null) {
+            ClickSink sink;
+            try {
+                sink = ClickSinks.create(sinkName);
+            } catch (AWTException | HeadlessException e) {
+                System.err.println("Error: no click output available (no display? run under Xvfb): " + e.getMessage());
+                return 1;
+            }
+            int exitCode = replayMacro(sink, config, macroName, loops, speed, stats);
+            sink.close();
+            return exitCode;
+        }
+        if (!jobs.isEmpty()) {
+            ClickSink sink;
+            try {
+                sink = ClickSinks.create(sinkName);
+            } catch (AWTException | HeadlessException e) {
+                System.err.println("Error: no click output available (no display? run under Xvfb): " + e.getMessage());
+                return 1;
+            }
+            for (ClickEngine.Job job : runJobs(sink, config, jobs, durationMillis)) {
+                System.out.printf("%s: %d clicks (%.1f cps, target %d)%s%n", job.getDefinition().name(),
+                        job.getClickCount(), job.getAchievedCps(), job.getDefinition().cps(),
+                        job.isCancelled() ? ", cancelled" : "");
+            }
+            System.out.printf("%d clicks via %s%n", config.getClickCount(), sink.getName());
+            sink.close();
+            return 0;
+        }
+
+        ClickerLogic logic;
+        try {
+            logic = new ClickerLogic(config, ClickSinks.create(sinkName));
+        } catch (AWTException | HeadlessException e) {
+            System.err.println("Error: no click output available (no display? run under Xvfb): " + e.getMessage());
+            return 1;
+        }
+
+        SessionHistory history = new SessionHistory();
+        logic.setSessionHistory(history);
+
+        //scripted runs can be scraped too; registered in the background so the first click isn't delayed
+        ClickerMetrics metrics = new ClickerMetrics(config, logic);
+        CompletableFuture.runAsync(metrics::start);
+        ControlServer control = ControlServer.startIfConfigured(config, logic);
+
+        //Ctrl+C / SIGTERM: stop cleanly and still report
+        Thread mainThread = Thread.currentThread();
+        Thread shutdownHook = new Thread(() -> {
+            shuttingDown = true;
+            logic.stop();
+            try {
+                mainThread.join(1000);
+            } catch (InterruptedException _) {
+                //exiting anyway
+            }
+        }, "headless-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+        long start = System.nanoTime();
+        try {
+            logic.start();
+            logic.join(durationMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            logic.stop();
+        }
+        try {
+            logic.join(1000);
+        } catch (InterruptedException _) {
+            //report what we have
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        //rate over the click intervals, first click to last: startup and the wait after the last click don't count
+        long clicks = config.getClickCount();
+        LatencyHistogram intervals = logic.getIntervalHistogram();
+        double cps = intervals.getCount() == 0 ? 0 : intervals.getCount() * 1e9 / intervals.getSum();
+        System.out.printf("%d clicks in %.3f s (%.1f cps, target %d) via %s%n",
+                clicks, seconds, cps, config.getCps(), logic.getSink().getName());
+        RateGovernor governor = logic.getGovernor();
+        if (governor.getSaturations() > 0) {
+            System.out.printf("target %d cps was not reachable on this host; capped at ~%.0f cps%n",
+                    config.getCps(), governor.isSaturated() ? governor.getSustainableCps() : governor.getMeasuredCps());
+        }
+        if (stats) {
+            logic.dumpHistograms(System.out);
+        }
+        logic.getSink().close();
+        metrics.stop();
+        if (control != null) control.close();
+        history.close();
+
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException _) {
+            //already shutting down
+        }
+        return 0;
+    }
+
+    //runs the jobs side by side on one ClickEngine until all of them reach their limit, durationMillis (0 = no
+    //bound) elapses or the JVM is asked to exit; jobs still running then are cancelled. returns the finished jobs
+    static List<ClickEngine.Job> runJobs(ClickSink sink, ClickerConfig config, List<ClickJob> jobs, long durationMillis) {
+        List<ClickEngine.Job> running = new ArrayList<>();
+        Thread mainThread = Thread.currentThread();
+        Thread shutdownHook = new Thread(() -> {
+            shuttingDown = true;
+            running.forEach(ClickEngine.Job::cancel);
+            try {
+                mainThread.join(1000);
+            } catch (InterruptedException _) {
+                //exiting anyway
+            }
+        }, "headless-shutdown");
+
+        try (ClickEngine engine = new ClickEngine(sink, config)) {
+            for (ClickJob job : jobs) {
+                running.add(engine.submit(job));
+            }
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+            CompletableFuture<Void> all = CompletableFuture.allOf(running.stream()
+                    .map(ClickEngine.Job::onCompletion).toArray(CompletableFuture[]::new));
+            try {
+                if (durationMillis > 0) {
+                    all.get(durationMillis, TimeUnit.MILLISECONDS);
+                } else {
+                    all.get();
+                }
+            } catch (TimeoutException _) {
+                //duration is up
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("Error running click jobs: " + e.getCause());
+            }
+
+            running.forEach(ClickEngine.Job::cancel);
+            try {
+                all.get(1, TimeUnit.SECONDS);
+            } catch (InterruptedException | ExecutionException | TimeoutException _) {
+                //report what we have
+            }
+        }
+
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException _) {
+            //already shutting down
+        }
+        return running;
+    }
+
+    //plays a MacroRecorder recording into the sink until done or the JVM is asked to exit
+    static int replayMacro(ClickSink sink, ClickerConfig config, String macroName, int loops, double speed, boolean stats) {
+        MacroPlayer player = new MacroPlayer(sink, config);
+        Thread mainThread = Thread.currentThread();
+        Thread shutdownHook = new Thread(() -> {
+            shuttingDown = true;
+            player.stop();
+            try {
+                mainThread.join(1000);
+            } catch (InterruptedException _) {
+                //exiting anyway
+            }
+        }, "headless-shutdown");
+
+        long start = System.nanoTime();
+        try {
+            player.start(macroName, loops, speed);
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+            player.join();
+        } catch (IOException e) {
+            System.err.println("Error replaying macro " + macroName + ": " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            player.stop();
+            Thread.currentThread().interrupt();
+        }
+
+        LatencyHistogram lateness = player.getLatenessHistogram();
+        System.out.printf("%s: %d events (%d clicks) in %.3f s via %s%n", macroName, lateness.getCount(),
+                config.getClickCount(), (System.nanoTime() - start) / 1e9, sink.getName());
+        if (stats) {
+            lateness.dump(System.out);
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException _) {
+            //already shutting down
+        }
+        return 0;
+    }
+
+    //<cps>[x<limit>][@<x>,<y>], e.g. 20, 500x1000, 10@640,480, 50x100@0,0
+    static ClickJob parseJob(String spec, int number, int mouseButton) {
+        String rate = spec;
+        boolean positioned = false;
+        int x = 0, y = 0;
+        int at = spec.indexOf('@');
+        if (at >= 0) {
+            rate = spec.substring(0, at);
+            String[] position = spec.substring(at + 1).split(",", -1);
+            if (position.length != 2) throw new IllegalArgumentException("--job position must be <x>,<y>: " + spec);
+            positioned = true;
+            x = Integer.parseInt(position[0].trim());
+            y = Integer.parseInt(position[1].trim());
+        }
+        int limit = 0;
+        int times = rate.indexOf('x');
+        if (times >= 0) {
+            limit = Integer.parseInt(rate.substring(times + 1));
+            if (limit < ClickerConfig.CLICK_LIMIT_MIN || limit > ClickerConfig.CLICK_LIMIT_MAX) {
+                throw new IllegalArgumentException("--job click limit must be between " + ClickerConfig.CLICK_LIMIT_MIN
+                        + " and " + ClickerConfig.CLICK_LIMIT_MAX);
+            }
+            rate = rate.substring(0, times);
+        }
+        int cps = Integer.parseInt(rate);
+        if (cps < ClickerConfig.CPS_MIN || cps > ClickerConfig.CPS_MAX) {
+            throw new IllegalArgumentException("--job cps must be between " + ClickerConfig.CPS_MIN + " and " + ClickerConfig.CPS_MAX);
+        }
+        return new ClickJob("job " + number, mouseButton, cps, limit, positioned, x, y);
+    }
+
+    //rollups of the run history log (see SessionHistory), one line per day and per profile
+    private static int printHistory() {
+        try {
+            Path file = SaveDataManager.getHistoryFile();
+            if (!Files.exists(file)) {
+                System.out.println("No runs recorded yet");
+                return 0;
+            }
+            System.out.println("Per day:");
+            for (Map.Entry<LocalDate, SessionHistory.Totals> day : SessionHistory.totalsByDay(file, ZoneId.systemDefault()).entrySet()) {
+                printTotals(day.getKey().toString(), day.getValue());
+            }
+            System.out.println("Per profile:");
+            for (Map.Entry<String, SessionHistory.Totals> profile : SessionHistory.totalsByProfile(file).entrySet()) {
+                printTotals(profile.getKey(), profile.getValue());
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Error reading run history: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    //bulk template export/import (see TemplateArchive); both given: import first, so the export includes it
+    private static int transferTemplates(Path exportArchive, Path importArchive, TemplateArchive.ConflictPolicy policy) {
+        try {
+            if (importArchive != null) {
+                long start = System.nanoTime();
+                TemplateArchive.ImportResult result = TemplateArchive.importFrom(importArchive, policy, _ -> { });
+                System.out.printf("%s from %s in %.2f s%n", result, importArchive, (System.nanoTime() - start) / 1e9);
+            }
+            if (exportArchive != null) {
+                long start = System.nanoTime();
+                int exported = TemplateArchive.exportTo(exportArchive, _ -> { });
+                System.out.printf("%d templates exported to %s in %.2f s%n", exported, exportArchive, (System.nanoTime() - start) / 1e9);
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Error transferring templates: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    private static void printTotals(String label, SessionHistory.Totals totals) {
+        System.out.printf("  %-22s %8d runs %14d clicks %12.1f s %9.1f cps%n", label, totals.getRuns(),
+                totals.getClicks(), totals.getDurationNanos() / 1e9, totals.getAverageCps());
+    }
+
+    private static String value(String[] args, int i) {
+        if (i >= args.length) throw new IllegalArgumentException(args[i - 1] + " needs a value");
+        return args[i];
+    }
+
+    private static int parseInt(String[] args, int i, int min, int max) {
+        int value = Integer.parseInt(value(args, i));
+        if (value < min || value > max) {
+            throw new IllegalArgumentException(args[i - 1] + " must be between " + min + " and " + max);
+        }
+        return value;
+    }
+
+    private static int parseButton(String name) {
+        return switch (name.toLowerCase()) {
+            case "left" -> InputEvent.BUTTON1_DOWN_MASK;
+            case "right" -> InputEvent.BUTTON3_DOWN_MASK;
+            case "middle" -> InputEvent.BUTTON2_DOWN_MASK;
+            default -> throw new IllegalArgumentException("unknown button " + name);
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package com.croissant.CroissantClicker;
+
+//what a global hotkey binding does
+public enum HotkeyAction {
+    TOGGLE("toggle"), //start/stop clicking
+    HOLD("hold"), //click while the key is held
+    PROFILE("profile"), //load the bound config template
+    BURST("burst"), //fire a burst (with a cooldown set: start/stop repeating bursts)
+    RECORD("record"), //start/stop recording the quick macro
+    REPLAY("replay"); //start/stop replaying the quick macro
+
+    private final String key; //name in hotkeys.conf
+
+    HotkeyAction(String key) {
+        this.key = key;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public static HotkeyAction fromKey(String key) {
+        for (HotkeyAction action : values()) {
+            if (action.key.equals(key)) return action;
+        }
+        return null;
+    }
+}
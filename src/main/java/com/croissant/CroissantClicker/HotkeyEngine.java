@@ -0,0 +1,389 @@
+package com.croissant.CroissantClicker;
+
+import com.github.kwhat.jnativehook.GlobalScreen;
+import com.github.kwhat.jnativehook.NativeHookException;
+import com.github.kwhat.jnativehook.dispatcher.VoidDispatchService;
+import com.github.kwhat.jnativehook.keyboard.NativeKeyEvent;
+import com.github.kwhat.jnativehook.keyboard.NativeKeyListener;
+import com.github.kwhat.jnativehook.mouse.NativeMouseEvent;
+import com.github.kwhat.jnativehook.mouse.NativeMouseListener;
+
+import java.awt.event.InputEvent;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.IntConsumer;
+
+//global hotkeys: any number of key -> action bindings, persisted in <save dir>/hotkeys.conf and rebindable at runtime.
+//events are handled inline on the native hook thread (no dispatcher hop) with one array lookup per key event.
+//toggle/hold start ClickerLogic (burst: BurstEngine) directly; the enabled flag is updated afterwards, so the EDT/listeners are never
+//on the path to the first click. per binding: OS auto-repeat is ignored (no repeated press while held) and
+//presses closer together than the debounce window are dropped. middle/side mouse buttons can be bound too
+//(hold a side button to click). record/replay toggle capture and playback of the quick macro (MacroRecorder,
+//MacroPlayer); its file I/O runs off the hook thread like profile loads.
+public class HotkeyEngine implements NativeKeyListener, NativeMouseListener {
+
+    //min time between two presses of the same toggle/profile key: -Dcroissant.hotkey.debounceMs=40
+    public static final String DEBOUNCE_PROPERTY = "croissant.hotkey.debounceMs";
+    public static final long DEBOUNCE_DEFAULT_MS = 40;
+    public static final int DEFAULT_TOGGLE_KEY = NativeKeyEvent.VC_F8;
+    //macro the record/replay hotkeys work on: <save dir>/macros/quick.macro
+    public static final String QUICK_MACRO_NAME = "quick";
+
+    private static final int KEY_SPACE = 0x10000; //JNativeHook key codes are 16 bit
+    //mouse buttons share the table as pseudo key codes above every VC_ constant: MOUSE3 (middle) .. MOUSE5
+    private static final int MOUSE_CODE_BASE = 0xFFF0;
+    private static final int MAX_BINDINGS = 256;
+    private static final Map<Integer, String> KEY_NAMES = new HashMap<>();
+    private static final Map<String, Integer> KEY_CODES = new HashMap<>();
+
+    static {
+        //key names from the VC_ constants: VC_F8 -> "F8"
+        for (Field field : NativeKeyEvent.class.getFields()) {
+            if (field.getName().startsWith("VC_") && Modifier.isStatic(field.getModifiers()) && field.getType() == int.class) {
+                try {
+                    String name = field.getName().substring(3);
+                    int code = field.getInt(null);
+                    KEY_NAMES.putIfAbsent(code, name);
+                    KEY_CODES.put(name, code);
+                } catch (IllegalAccessException _) {
+                    //public constants, can't happen
+                }
+            }
+        }
+        for (int button = NativeMouseEvent.BUTTON3; button <= NativeMouseEvent.BUTTON5; button++) {
+            KEY_NAMES.put(MOUSE_CODE_BASE + button, "MOUSE" + button);
+            KEY_CODES.put("MOUSE" + button, MOUSE_CODE_BASE + button);
+        }
+    }
+
+    public record Binding(HotkeyAction action, String argument, int keyCode) {}
+
+    private final ClickerConfig config;
+    private final ClickerLogic logic;
+    private final BurstEngine burst;
+    private final MacroPlayer macroPlayer;
+    private MacroRecorder macroRecorder; //guarded by macroLock, null when not recording
+    private final Object macroLock = new Object();
+    private final long debounceNanos;
+    //bindings as edited (guarded by this); the lookup table below is rebuilt from them on every change
+    private final List<Binding> bindings = new ArrayList<>();
+    private volatile Table table = new Table(List.of());
+    //next key press goes here instead of triggering an action (rebinding from the UI)
+    private volatile IntConsumer capture;
+
+    public HotkeyEngine(ClickerConfig config, ClickerLogic logic, BurstEngine burst) {
+        this.config = config;
+        this.logic = logic;
+        this.burst = burst;
+        this.macroPlayer = new MacroPlayer(logic.getSink(), config);
+        this.debounceNanos = Long.getLong(DEBOUNCE_PROPERTY, DEBOUNCE_DEFAULT_MS) * 1_000_000L;
+        load();
+    }
+
+    //register the native hook; slow (unpacks and loads a native library), call off the EDT
+    public void register() {
+        //run listeners inline on the hook thread instead of handing every event to a dispatcher thread
+        GlobalScreen.setEventDispatcher(new VoidDispatchService());
+        try {
+            GlobalScreen.registerNativeHook();
+        } catch (NativeHookException e) {
+            System.err.println("Global hotkeys unavailable: " + e.getMessage());
+            return;
+        }
+        GlobalScreen.addNativeKeyListener(this);
+        GlobalScreen.addNativeMouseListener(this);
+    }
+
+    @Override
+    public void nativeKeyPressed(NativeKeyEvent e) {
+        pressed(e.getKeyCode(), System.nanoTime());
+    }
+
+    @Override
+    public void nativeKeyReleased(NativeKeyEvent e) {
+        released(e.getKeyCode());
+    }
+
+    @Override
+    public void nativeMousePressed(NativeMouseEvent e) {
+        long now = System.nanoTime();
+        if (isTriggerButton(e.getButton())) pressed(MOUSE_CODE_BASE + e.getButton(), now);
+    }
+
+    @Override
+    public void nativeMouseReleased(NativeMouseEvent e) {
+        if (isTriggerButton(e.getButton())) released(MOUSE_CODE_BASE + e.getButton());
+    }
+
+    //left/right are what we click with, so they can't be triggers. a middle/side button that matches the
+    //configured output button is our own click coming back through the hook
+    private boolean isTriggerButton(int nativeButton) {
+        if (nativeButton < NativeMouseEvent.BUTTON3 || nativeButton > NativeMouseEvent.BUTTON5) return false;
+        int mask = nativeButton == NativeMouseEvent.BUTTON3 ? InputEvent.BUTTON2_DOWN_MASK
+                : InputEvent.getMaskForButton(nativeButton);
+        return mask != config.getMouseButton();
+    }
+
+    private void pressed(int code, long now) {
+        IntConsumer captured = capture;
+        if (captured != null) {
+            capture = null;
+            captured.accept(code);
+            return;
+        }
+
+        Table t = table;
+        int slot = t.slotByKey[code & (KEY_SPACE - 1)] - 1;
+        if (slot < 0) return;
+
+        if (t.down[slot]) return; //auto-repeat while held
+        t.down[slot] = true;
+
+        HotkeyAction action = t.actions[slot];
+        ClickerEvents.Hotkey event = new ClickerEvents.Hotkey();
+        event.begin();
+        if (action != HotkeyAction.HOLD) {
+            long sinceLast = now - t.lastPressNanos[slot];
+            t.lastPressNanos[slot] = now;
+            if (sinceLast < debounceNanos) { //contact bounce / double press
+                commitHotkeyEvent(event, action, code, t.arguments[slot], true);
+                return;
+            }
+        }
+        onPress(action, t.arguments[slot], code, now);
+        commitHotkeyEvent(event, action, code, t.arguments[slot], false);
+    }
+
+    private static void commitHotkeyEvent(ClickerEvents.Hotkey event, HotkeyAction action, int code, String argument,
+                                          boolean debounced) {
+        if (!event.shouldCommit()) return;
+        event.action = action.getKey();
+        event.key = keyName(code);
+        event.argument = argument;
+        event.debounced = debounced;
+        event.commit();
+    }
+
+    private void released(int code) {
+        Table t = table;
+        int slot = t.slotByKey[code & (KEY_SPACE - 1)] - 1;
+        if (slot < 0) return;
+
+        t.down[slot] = false;
+        if (t.actions[slot] == HotkeyAction.HOLD) {
+            stopClicking(); //returns only once the last click is released: nothing fires after this
+        }
+    }
+
+    private void onPress(HotkeyAction action, String argument, int code, long eventNanos) {
+        switch (action) {
+            case TOGGLE -> {
+                if (config.isEnabled()) stopClicking();
+                else startClicking(eventNanos);
+            }
+            case HOLD -> startClicking(eventNanos);
+            //disk I/O stays off the hook thread
+            case PROFILE -> CompletableFuture.runAsync(() -> SaveDataManager.load(config, argument));
+            case BURST -> burst.trigger();
+            case RECORD -> CompletableFuture.runAsync(() -> toggleRecording(code));
+            case REPLAY -> CompletableFuture.runAsync(this::toggleReplay);
+        }
+    }
+
+    //the record key itself is left out of the recording
+    private void toggleRecording(int recordKeyCode) {
+        synchronized (macroLock) {
+            if (macroRecorder != null) {
+                stopRecording();
+                return;
+            }
+            macroPlayer.stop(); //don't record our own replay
+            MacroRecorder recorder = new MacroRecorder(recordKeyCode);
+            try {
+                recorder.start(QUICK_MACRO_NAME);
+                macroRecorder = recorder;
+            } catch (IOException e) {
+                System.err.println("Error starting macro recording: " + e.getMessage());
+            }
+        }
+    }
+
+    private void toggleReplay() {
+        synchronized (macroLock) {
+            if (macroPlayer.isPlaying()) {
+                macroPlayer.stop();
+                return;
+            }
+            stopRecording();
+            try {
+                macroPlayer.start(QUICK_MACRO_NAME, 1, 1.0);
+            } catch (IOException e) {
+                System.err.println("Error replaying macro: " + e.getMessage());
+            }
+        }
+    }
+
+    //finish a recording in progress (exit) so its file is complete
+    public void stopMacros() {
+        synchronized (macroLock) {
+            stopRecording();
+            macroPlayer.stop();
+        }
+    }
+
+    private void stopRecording() {
+        if (macroRecorder != null) {
+            macroRecorder.stop();
+            macroRecorder = null;
+        }
+    }
+
+    //start/stop also flip config.enabled, after the click thread is woken: listeners (UI) react to a running clicker
+    private void startClicking(long eventNanos) {
+        try {
+            logic.start(eventNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void stopClicking() {
+        logic.stop();
+    }
+
+    //--- bindings ---------------------------------------------------------------------------------------------------
+
+    public synchronized List<Binding> getBindings() {
+        return List.copyOf(bindings);
+    }
+
+    //bound key for an action (argument = profile name for PROFILE, else null); VC_UNDEFINED when unbound
+    public synchronized int getKey(HotkeyAction action, String argument) {
+        for (Binding binding : bindings) {
+            if (binding.action() == action && Objects.equals(binding.argument(), argument)) return binding.keyCode();
+        }
+        return NativeKeyEvent.VC_UNDEFINED;
+    }
+
+    //bind a key, replacing the action's previous key and whatever the key did before. saved immediately
+    public synchronized void bind(HotkeyAction action, String argument, int keyCode) {
+        bindings.removeIf(b -> b.keyCode() == keyCode
+                || (b.action() == action && Objects.equals(b.argument(), argument)));
+        if (keyCode != NativeKeyEvent.VC_UNDEFINED) {
+            if (bindings.size() >= MAX_BINDINGS) throw new IllegalStateException("too many hotkey bindings");
+            bindings.add(new Binding(action, argument, keyCode));
+        }
+        table = new Table(bindings);
+        save();
+    }
+
+    public void unbind(HotkeyAction action, String argument) {
+        bind(action, argument, NativeKeyEvent.VC_UNDEFINED);
+    }
+
+    //deliver the next pressed key (or middle/side mouse button) to the callback (on the hook thread) instead of acting on it
+    public void captureNextKey(IntConsumer callback) {
+        capture = callback;
+    }
+
+    public void cancelCapture() {
+        capture = null;
+    }
+
+    public static String keyName(int keyCode) {
+        if (keyCode == NativeKeyEvent.VC_UNDEFINED) return "None";
+        return KEY_NAMES.getOrDefault(keyCode, "0x" + Integer.toHexString(keyCode));
+    }
+
+    public static int keyCode(String name) {
+        if (name.startsWith("0x")) return Integer.parseInt(name.substring(2), 16);
+        Integer code = KEY_CODES.get(name.toUpperCase());
+        if (code == null) throw new IllegalArgumentException("unknown key " + name);
+        return code;
+    }
+
+    //--- persistence: toggle=F8, hold=F9, burst=F10, record=F6, replay=F7, profile.<name>=F1 ---------------------------------------------
+
+    private synchronized void load() {
+        bindings.clear();
+        try {
+            Path file = SaveDataManager.getHotkeyFile();
+            if (!Files.exists(file)) {
+                bindings.add(new Binding(HotkeyAction.TOGGLE, null, DEFAULT_TOGGLE_KEY));
+            } else {
+                Properties props = new Properties();
+                try (InputStream input = Files.newInputStream(file)) {
+                    props.load(input);
+                }
+                for (String key : props.stringPropertyNames()) {
+                    int dot = key.indexOf('.');
+                    HotkeyAction action = HotkeyAction.fromKey(dot < 0 ? key : key.substring(0, dot));
+                    String argument = dot < 0 ? null : key.substring(dot + 1);
+                    if (action == null || (action == HotkeyAction.PROFILE) == (argument == null)) {
+                        System.err.println("Ignoring hotkey binding " + key);
+                        continue;
+                    }
+                    try {
+                        bindings.add(new Binding(action, argument, keyCode(props.getProperty(key).trim())));
+                    } catch (IllegalArgumentException e) {
+                        System.err.println("Ignoring hotkey binding " + key + ": " + e.getMessage());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading hotkeys: " + e.getMessage());
+            bindings.add(new Binding(HotkeyAction.TOGGLE, null, DEFAULT_TOGGLE_KEY));
+        }
+        table = new Table(bindings);
+    }
+
+    private void save() {
+        Properties props = new Properties();
+        for (Binding binding : bindings) {
+            String key = binding.argument() == null ? binding.action().getKey()
+                    : binding.action().getKey() + "." + binding.argument();
+            props.setProperty(key, keyName(binding.keyCode()));
+        }
+        try {
+            Path file = SaveDataManager.getHotkeyFile();
+            Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+            try (OutputStream output = Files.newOutputStream(tempFile)) {
+                props.store(output, "Global hotkeys: action=KEY, profile.<template name>=KEY");
+            }
+            SaveDataManager.moveAtomically(tempFile, file);
+        } catch (IOException e) {
+            System.err.println("Error saving hotkeys: " + e.getMessage());
+        }
+    }
+
+    //immutable key -> binding lookup plus per binding press state (hook thread only), swapped on every change
+    private static final class Table {
+        final short[] slotByKey = new short[KEY_SPACE]; //binding index + 1, 0 = unbound
+        final HotkeyAction[] actions;
+        final String[] arguments;
+        final boolean[] down;
+        final long[] lastPressNanos;
+
+        Table(List<Binding> bindings) {
+            int count = bindings.size();
+            actions = new HotkeyAction[count];
+            arguments = new String[count];
+            down = new boolean[count];
+            lastPressNanos = new long[count];
+            for (int i = 0; i < count; i++) {
+                Binding binding = bindings.get(i);
+                slotByKey[binding.keyCode() & (KEY_SPACE - 1)] = (short) (i + 1);
+                actions[i] = binding.action();
+                arguments[i] = binding.argument();
+                lastPressNanos[i] = System.nanoTime() - 3_600_000_000_000L; //"long ago", never debounced
+            }
+        }
+    }
+}
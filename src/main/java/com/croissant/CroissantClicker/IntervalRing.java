@@ -0,0 +1,46 @@
+package com.croissant.CroissantClicker;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+//single-producer/single-consumer ring of primitive longs. no locks and no allocation after construction:
+//the producer publishes with a release store of head, the consumer frees slots with a release store of tail.
+public class IntervalRing {
+
+    private final long[] values;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong(); //next slot to write (producer)
+    private final AtomicLong tail = new AtomicLong(); //next slot to read (consumer)
+
+    //capacity is rounded up to a power of two
+    public IntervalRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        values = new long[size];
+        mask = size - 1;
+    }
+
+    public int capacity() {
+        return values.length;
+    }
+
+    public int size() {
+        return (int) (head.get() - tail.get());
+    }
+
+    //producer only
+    public boolean offer(long value) {
+        long h = head.get();
+        if (h - tail.get() == values.length) return false;
+        values[(int) h & mask] = value;
+        head.lazySet(h + 1);
+        return true;
+    }
+
+    //consumer only; returns emptyValue when nothing is buffered
+    public long poll(long emptyValue) {
+        long t = tail.get();
+        if (t == head.get()) return emptyValue;
+        long value = values[(int) t & mask];
+        tail.lazySet(t + 1);
+        return value;
+    }
+}
@@ -0,0 +1,136 @@
+package com.croissant.CroissantClicker;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//fixed-bucket log-linear histogram of nanosecond durations (HdrHistogram style, buckets ~3% wide: percentiles are
+//reported within ~1.6% of the recorded value).
+//recording is allocation free and safe from one writer thread while other threads read percentiles.
+public class LatencyHistogram {
+
+    //64 linear sub-buckets; the upper 32 are new for each power of two (the lower half repeats the octave below)
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;
+    //values above 2^40 ns (~18 min) are clamped into the last bucket
+    private static final long MAX_TRACKABLE = (1L << 40) - 1;
+    private static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE) + 1;
+
+    private final String name;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private volatile long count;
+    private volatile long sum;
+    private volatile long max;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    //single writer: count/sum/max are plain read-modify-write on volatiles
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        long clamped = Math.min(nanos, MAX_TRACKABLE);
+        buckets.lazySet(bucketIndex(clamped), buckets.get(bucketIndex(clamped)) + 1);
+        sum = sum + nanos;
+        if (nanos > max) max = nanos;
+        count = count + 1;
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        long n = count;
+        return n == 0 ? 0 : (double) sum / n;
+    }
+
+    //value at the given percentile (0-100), reported as the midpoint of the bucket it falls into
+    public long getPercentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += buckets.get(i);
+        }
+        if (total == 0) return 0;
+
+        long target = Math.max(1, (long) Math.ceil(total * percentile / 100.0));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return Math.min(bucketMidpoint(i), max);
+            }
+        }
+        return max;
+    }
+
+    //p50 / p99 / p99.9 / max in milliseconds for the status line
+    public String summary() {
+        return String.format("p50 %s  p99 %s  p99.9 %s  max %s",
+                formatMillis(getPercentile(50)), formatMillis(getPercentile(99)),
+                formatMillis(getPercentile(99.9)), formatMillis(getMax()));
+    }
+
+    //full non-empty bucket table, for end-of-run analysis
+    public void dump(PrintStream out) {
+        out.printf("%s: count=%d mean=%s %s%n", name, getCount(), formatMillis((long) getMean()), summary());
+        out.printf("  %14s %14s %10s %8s%n", "from(ns)", "to(ns)", "count", "cum%");
+        long total = getCount();
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            long n = buckets.get(i);
+            if (n == 0) continue;
+            cumulative += n;
+            out.printf("  %14d %14d %10d %7.3f%%%n", bucketLowerBound(i), bucketUpperBound(i), n,
+                    total == 0 ? 0 : cumulative * 100.0 / total);
+        }
+    }
+
+    static String formatMillis(long nanos) {
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+
+    //values below 64 map 1:1, above that each power of two is split into 32 buckets of equal width
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+        return shift * SUB_BUCKET_HALF + (int) (value >>> shift);
+    }
+
+    static long bucketLowerBound(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+        int shift = index / SUB_BUCKET_HALF - 1;
+        long top = index - shift * SUB_BUCKET_HALF;
+        return top << shift;
+    }
+
+    static long bucketUpperBound(int index) {
+        return bucketLowerBound(index + 1) - 1;
+    }
+
+    private static long bucketMidpoint(int index) {
+        long lower = bucketLowerBound(index);
+        return lower + (bucketUpperBound(index) - lower) / 2;
+    }
+}
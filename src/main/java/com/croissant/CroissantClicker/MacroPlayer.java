@@ -0,0 +1,138 @@
+package com.croissant.CroissantClicker;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+
+//replays a recorded macro into a ClickSink. the file is streamed (constant memory for any recording length) and
+//every event is fired at its absolute nanoTime deadline, parked then spun like ClickScheduler, so timing matches
+//the recording to well under a millisecond. supports loop counts and speed multipliers.
+public class MacroPlayer {
+
+    private static final long SPIN_THRESHOLD_NANOS = 2_000_000L;
+
+    private final ClickSink sink;
+    private final ClickerConfig config; //optional: replayed mouse presses are also counted as clicks
+    //how late each event fired relative to its scheduled deadline
+    private final LatencyHistogram latenessHistogram = new LatencyHistogram("replay lateness");
+    //buttons/keys currently held by the replay, released if playback is stopped midway
+    private int heldButtons;
+    private final BitSet heldKeys = new BitSet(256);
+    private volatile boolean playing = false;
+    private Thread thread;
+
+    public MacroPlayer(ClickSink sink, ClickerConfig config) {
+        this.sink = sink;
+        this.config = config;
+    }
+
+    public LatencyHistogram getLatenessHistogram() {
+        return latenessHistogram;
+    }
+
+    public boolean isPlaying() {
+        return thread != null && thread.isAlive();
+    }
+
+    //replay <save dir>/macros/<name>.macro; loops <= 0 repeats until stopped, speed 2.0 plays twice as fast
+    public synchronized void start(String macroName, int loops, double speed) throws IOException {
+        if (isPlaying()) return;
+        if (speed <= 0) throw new IllegalArgumentException("speed must be > 0");
+
+        Path file = SaveDataManager.getMacroFile(macroName);
+        if (!Files.exists(file)) throw new FileNotFoundException("no macro named " + macroName);
+
+        playing = true;
+        latenessHistogram.reset();
+        thread = new Thread(() -> {
+            try {
+                for (int loop = 0; playing && (loops <= 0 || loop < loops); loop++) {
+                    playOnce(file, speed);
+                }
+            } catch (InterruptedException _) {
+                //stopped
+            } catch (IOException e) {
+                System.err.println("Error replaying macro " + macroName + ": " + e.getMessage());
+            } finally {
+                releaseHeld();
+                playing = false;
+            }
+        }, "macro-replay");
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    public void stop() {
+        playing = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    public void join() throws InterruptedException {
+        if (thread != null) thread.join();
+    }
+
+    private void playOnce(Path file, double speed) throws IOException, InterruptedException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (input.readInt() != MacroRecorder.MAGIC) throw new IOException("not a macro file");
+            int version = input.readUnsignedByte();
+            if (version > MacroRecorder.FORMAT_VERSION) throw new IOException("unsupported macro version " + version);
+
+            long origin = System.nanoTime();
+            long recordedNanos = 0; //position on the recording's own timeline
+            while (playing) {
+                byte type = input.readByte();
+                if (type == MacroRecorder.EVENT_END) return;
+
+                recordedNanos += MacroRecorder.readVarLong(input);
+                long first = MacroRecorder.readVarLong(input);
+                long second = type == MacroRecorder.EVENT_MOVE ? MacroRecorder.readVarLong(input) : 0;
+
+                //absolute deadline on the scaled timeline: scheduling error never accumulates across events
+                long deadline = origin + (long) (recordedNanos / speed);
+                ClickScheduler.awaitDeadline(deadline, SPIN_THRESHOLD_NANOS);
+                latenessHistogram.record(System.nanoTime() - deadline);
+
+                fire(type, (int) first, (int) second);
+            }
+        }
+    }
+
+    private void fire(byte type, int first, int second) {
+        switch (type) {
+            case MacroRecorder.EVENT_MOVE -> sink.moveTo(MacroRecorder.unzigzag(first), MacroRecorder.unzigzag(second));
+            case MacroRecorder.EVENT_MOUSE_PRESS -> {
+                sink.press(first);
+                heldButtons |= first;
+                if (config != null) config.incrementClickCount();
+            }
+            case MacroRecorder.EVENT_MOUSE_RELEASE -> {
+                sink.release(first);
+                heldButtons &= ~first;
+            }
+            case MacroRecorder.EVENT_KEY_PRESS -> {
+                sink.keyPress(first);
+                heldKeys.set(first);
+            }
+            case MacroRecorder.EVENT_KEY_RELEASE -> {
+                sink.keyRelease(first);
+                heldKeys.clear(first);
+            }
+            default -> System.err.println("Skipping unknown macro event type " + type);
+        }
+    }
+
+    //never leave a button or key stuck down when playback is cut short
+    private void releaseHeld() {
+        for (int mask = Integer.lowestOneBit(heldButtons); heldButtons != 0; mask = Integer.lowestOneBit(heldButtons)) {
+            sink.release(mask);
+            heldButtons &= ~mask;
+        }
+        for (int key = heldKeys.nextSetBit(0); key >= 0; key = heldKeys.nextSetBit(key + 1)) {
+            sink.keyRelease(key);
+        }
+        heldKeys.clear();
+    }
+}
@@ -0,0 +1,226 @@
+package com.croissant.CroissantClicker;
+
+import com.github.kwhat.jnativehook.GlobalScreen;
+import com.github.kwhat.jnativehook.keyboard.NativeKeyEvent;
+import com.github.kwhat.jnativehook.keyboard.NativeKeyListener;
+import com.github.kwhat.jnativehook.keyboard.SwingKeyAdapter;
+import com.github.kwhat.jnativehook.mouse.NativeMouseEvent;
+import com.github.kwhat.jnativehook.mouse.NativeMouseInputListener;
+
+import java.awt.event.InputEvent;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+//records global mouse/keyboard input from the JNativeHook GlobalScreen into a compact delta-encoded timeline,
+//streamed straight to disk so recordings of any length use constant memory. the hook thread only timestamps an
+//event and hands it over through a lock-free queue; a per-recording writer thread encodes and writes it, so stream
+//writes and buffer flushes never delay the delivery of global input.
+//
+//file format: magic "CRMC" (int) | version (byte) | events... | EVENT_END
+//event:       type (byte) | nanos since previous event (varint) | payload (varints)
+//             MOVE: x, y (zigzag)   MOUSE_PRESS/RELEASE: InputEvent button mask   KEY_PRESS/RELEASE: KeyEvent VK code
+public class MacroRecorder implements NativeKeyListener, NativeMouseInputListener {
+
+    static final int MAGIC = 0x43524D43; //"CRMC"
+    static final byte FORMAT_VERSION = 1;
+
+    static final byte EVENT_END = 0;
+    static final byte EVENT_MOVE = 1;
+    static final byte EVENT_MOUSE_PRESS = 2;
+    static final byte EVENT_MOUSE_RELEASE = 3;
+    static final byte EVENT_KEY_PRESS = 4;
+    static final byte EVENT_KEY_RELEASE = 5;
+
+    //timestamped on receipt, encoded later by the writer
+    private record Event(byte type, long nanos, int first, int second) {
+    }
+
+    private final KeyCodeMapper keyCodeMapper = new KeyCodeMapper();
+    private final int ignoredKeyCode; //the recording hotkey itself is not part of the macro
+    private final ConcurrentLinkedQueue<Event> queue = new ConcurrentLinkedQueue<>();
+    private Thread writer;
+    private volatile boolean recording = false;
+
+    //writer thread only (read by stop() after joining it)
+    private DataOutputStream output;
+    private long lastEventNanos;
+    private long eventCount;
+
+    public MacroRecorder() {
+        this(NativeKeyEvent.VC_UNDEFINED);
+    }
+
+    public MacroRecorder(int ignoredKeyCode) {
+        this.ignoredKeyCode = ignoredKeyCode;
+    }
+
+    //start capturing into <save dir>/macros/<name>.macro (replacing an existing recording of that name)
+    public synchronized void start(String macroName) throws IOException {
+        if (recording) return;
+
+        Path file = SaveDataManager.getMacroFile(macroName);
+        output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 64 * 1024));
+        output.writeInt(MAGIC);
+        output.writeByte(FORMAT_VERSION);
+        lastEventNanos = System.nanoTime();
+        eventCount = 0;
+        queue.clear();
+        recording = true;
+        writer = new Thread(this::writerLoop, "macro-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        GlobalScreen.addNativeKeyListener(this);
+        GlobalScreen.addNativeMouseListener(this);
+        GlobalScreen.addNativeMouseMotionListener(this);
+    }
+
+    //stop capturing and close the file; returns the number of recorded events
+    public synchronized long stop() {
+        if (!recording) return 0;
+
+        GlobalScreen.removeNativeKeyListener(this);
+        GlobalScreen.removeNativeMouseListener(this);
+        GlobalScreen.removeNativeMouseMotionListener(this);
+        recording = false;
+
+        //the writer drains what is queued, ends the file and exits
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writer = null;
+        output = null;
+        return eventCount;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    @Override
+    public void nativeMouseMoved(NativeMouseEvent e) {
+        write(EVENT_MOVE, zigzag(e.getX()), zigzag(e.getY()));
+    }
+
+    @Override
+    public void nativeMouseDragged(NativeMouseEvent e) {
+        write(EVENT_MOVE, zigzag(e.getX()), zigzag(e.getY()));
+    }
+
+    @Override
+    public void nativeMousePressed(NativeMouseEvent e) {
+        int mask = toButtonMask(e.getButton());
+        if (mask != 0) write(EVENT_MOUSE_PRESS, mask, 0);
+    }
+
+    @Override
+    public void nativeMouseReleased(NativeMouseEvent e) {
+        int mask = toButtonMask(e.getButton());
+        if (mask != 0) write(EVENT_MOUSE_RELEASE, mask, 0);
+    }
+
+    @Override
+    public void nativeKeyPressed(NativeKeyEvent e) {
+        if (e.getKeyCode() == ignoredKeyCode) return;
+        int vk = keyCodeMapper.toVirtualKey(e);
+        if (vk != 0) write(EVENT_KEY_PRESS, vk, 0);
+    }
+
+    @Override
+    public void nativeKeyReleased(NativeKeyEvent e) {
+        if (e.getKeyCode() == ignoredKeyCode) return;
+        int vk = keyCodeMapper.toVirtualKey(e);
+        if (vk != 0) write(EVENT_KEY_RELEASE, vk, 0);
+    }
+
+    //hook thread: timestamp on receipt with nanoTime and queue; lock-free, never touches the file
+    private void write(byte type, int first, int second) {
+        if (!recording) return;
+        queue.offer(new Event(type, System.nanoTime(), first, second));
+        LockSupport.unpark(writer);
+    }
+
+    private void writerLoop() {
+        while (true) {
+            boolean finishing = !recording; //checked before draining: nothing queued before stop() is lost
+            Event event;
+            while ((event = queue.poll()) != null) {
+                append(event);
+            }
+            if (finishing) break;
+            LockSupport.park(this);
+        }
+        try {
+            output.writeByte(EVENT_END);
+            output.close();
+        } catch (IOException e) {
+            System.err.println("Error finishing macro recording: " + e.getMessage());
+        }
+    }
+
+    //only the delta to the previous event is stored
+    private void append(Event event) {
+        try {
+            output.writeByte(event.type());
+            writeVarLong(output, event.nanos() - lastEventNanos);
+            writeVarLong(output, event.first() & 0xFFFFFFFFL);
+            if (event.type() == EVENT_MOVE) writeVarLong(output, event.second() & 0xFFFFFFFFL);
+            lastEventNanos = event.nanos();
+            eventCount++;
+        } catch (IOException e) {
+            System.err.println("Error writing macro event: " + e.getMessage());
+        }
+    }
+
+    //JNativeHook numbers buttons left=1, right=2, middle=3
+    private static int toButtonMask(int nativeButton) {
+        return switch (nativeButton) {
+            case NativeMouseEvent.BUTTON1 -> InputEvent.BUTTON1_DOWN_MASK;
+            case NativeMouseEvent.BUTTON2 -> InputEvent.BUTTON3_DOWN_MASK;
+            case NativeMouseEvent.BUTTON3 -> InputEvent.BUTTON2_DOWN_MASK;
+            case NativeMouseEvent.BUTTON4, NativeMouseEvent.BUTTON5 -> InputEvent.getMaskForButton(nativeButton);
+            default -> 0;
+        };
+    }
+
+    static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    //JNativeHook key codes are scan-code based; Robot needs AWT VK codes. SwingKeyAdapter knows the mapping
+    private static class KeyCodeMapper extends SwingKeyAdapter {
+        int toVirtualKey(NativeKeyEvent e) {
+            return getJavaKeyEvent(e).getKeyCode();
+        }
+    }
+}
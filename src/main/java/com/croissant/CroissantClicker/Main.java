@@ -1,40 +1,99 @@
 package com.croissant.CroissantClicker;
 
 import java.awt.*;
+import java.util.concurrent.CompletableFuture;
 
 //TODO: add enums for drop down boxes
-//TODO: add custom theme
-//TODO: slide in drawer animation
 
 
 public class Main {
 
-    public static void main(String[] args) throws AWTException {
+    public static void main(String[] args) {
+        StartupTimer.markMain();
+        ClickerEvents.startRecordingIfRequested();
+
+        //scripted runs: no Swing/FlatLaf/hotkey hook is ever loaded on this path
+        for (String arg : args) {
+            if ("--headless".equals(arg)) {
+                HeadlessMain.main(args);
+                return;
+            }
+        }
 
         ClickerConfig config = new ClickerConfig();
-        ClickerLogic logic = new ClickerLogic(config);
-        GlobalHotkey hotkey = new GlobalHotkey(config);
 
-        //load user save data into config (prior to propertychangelistener initialization)
-        SaveDataManager.load(config, "current");
+        //slow native setup runs in parallel in the background while the window comes up:
+        //Robot/uinput creation, and the JNativeHook registration (unpacks and loads a native library)
+        CompletableFuture<ClickSink> sinkReady = CompletableFuture.supplyAsync(Main::createClickSink);
+        DeferredClickSink sink = new DeferredClickSink(sinkReady);
+        ClickerLogic logic = new ClickerLogic(config, sink);
+        SessionHistory history = new SessionHistory();
+        history.installShutdownHook();
+        logic.setSessionHistory(history);
+        BurstEngine burst = new BurstEngine(sink, config);
+        HotkeyEngine hotkeys = new HotkeyEngine(config, logic, burst);
+        CompletableFuture<Void> hotkeyReady = CompletableFuture.runAsync(hotkeys::register);
+        //a recording cut off by exit would lack its end marker
+        Runtime.getRuntime().addShutdownHook(new Thread(hotkeys::stopMacros, "macro-shutdown"));
+        CompletableFuture.allOf(sinkReady, hotkeyReady).whenComplete((_, _) -> StartupTimer.markReady());
+        //JMX (and the optional local HTTP endpoint) load a good chunk of the JDK: also off the startup path
+        CompletableFuture.runAsync(new ClickerMetrics(config, logic)::start);
+        CompletableFuture.runAsync(SaveDataManager::initTemplateIndex);
+        //parse custom themes and build every theme's defaults now, so a switch doesn't do it on the EDT
+        CompletableFuture.runAsync(ThemeManager::prewarm);
+
+        //the window comes up with the defaults; user save data is read in the background (with the binary store
+        //that opens, maps and possibly migrates profiles.db) and applied on the EDT once it's there
+        ClickerUI.createAndShow(config, logic, hotkeys, burst);
+        CompletableFuture.supplyAsync(Main::readSavedConfig).whenComplete((saved, failure) -> EventQueue.invokeLater(() -> {
+            if (failure != null) {
+                System.err.println("Error loading config: " + failure.getMessage());
+            } else {
+                config.copySettingsFrom(saved);
+            }
+            //only now: autosave would otherwise write the defaults over the save before it was read
+            installAutoSave(config);
+            //after the load: a SET or LOAD from a client must not be overwritten by the saved state
+            ControlServer.startIfConfigured(config, logic);
+        }));
+    }
+
+    //user save data, or the defaults if there is none
+    private static ClickerConfig readSavedConfig() {
+        ClickerConfig saved = new ClickerConfig();
+        SaveDataManager.load(saved, "current");
+        return saved;
+    }
 
-        //autosave user data on config change
+    //autosave user data on config change (debounced, written in the background)
+    private static void installAutoSave(ClickerConfig config) {
+        AutoSaver autoSaver = new AutoSaver(config, "current");
+        autoSaver.installShutdownHook();
         config.addPropertyChangeListener(evt -> {
             if ("clickLimit".equals(evt.getPropertyName())
                     || "cps".equals(evt.getPropertyName())
                     || "mouseButton".equals(evt.getPropertyName())
                     || "clickLimitMode".equals(evt.getPropertyName())
                     || "theme".equals(evt.getPropertyName())
+                    || "timingMode".equals(evt.getPropertyName())
+                    || "timingJitter".equals(evt.getPropertyName())
+                    || "holdMillis".equals(evt.getPropertyName())
+                    || "holdJitter".equals(evt.getPropertyName())
+                    || "burstCount".equals(evt.getPropertyName())
+                    || "burstSpacingMicros".equals(evt.getPropertyName())
+                    || "burstCooldownMillis".equals(evt.getPropertyName())
             ){
-                SaveDataManager.save(config, "current");
+                autoSaver.requestSave();
             }
         });
+    }
 
-        javax.swing.SwingUtilities.invokeLater(() -> {
-            ClickerUI ui = new ClickerUI(config, logic);
-            ThemeManager.setTheme(config.getTheme(), ui);
-
-            ui.setVisible(true);
-        });
+    private static ClickSink createClickSink() {
+        try {
+            return ClickSinks.createDefault();
+        } catch (AWTException | HeadlessException e) {
+            System.err.println("No click output available, clicks will be counted only: " + e.getMessage());
+            return new CountingClickSink();
+        }
     }
 }
\ No newline at end of file
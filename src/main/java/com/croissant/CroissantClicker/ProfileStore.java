@@ -0,0 +1,397 @@
+package com.croissant.CroissantClicker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+//single-file template store: every template lives in one append-only binary log (profiles.db) next to the
+//.properties saves. reads go through a memory mapping using an in-memory name -> offset index, writes append a
+//record, and the file is compacted once dead records outweigh live ones.
+//
+//layout:  header  = magic "CRPS" (int) | format version (short) | reserved (short) | reserved (long)
+//         record  = length (int, bytes after this field) | type (byte) | name (short len + UTF-8)
+//                   | [PUT only] field count (byte) + fields | CRC32 of everything after length (int)
+//         field   = tag (byte) | kind (byte) | INT: 4 bytes, STRING: short len + UTF-8
+//unknown field tags are skipped, so newer fields can be added without bumping the format version.
+public class ProfileStore implements AutoCloseable {
+
+    public static final String FILE_NAME = "profiles.db";
+    private static final int MAGIC = 0x43525053; //"CRPS"
+    private static final short FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private static final byte RECORD_PUT = 1;
+    private static final byte RECORD_DELETE = 2;
+
+    private static final byte KIND_INT = 0;
+    private static final byte KIND_STRING = 1;
+
+    //field tags, also used by the control protocol (ControlServer SET)
+    static final byte FIELD_CPS = 1;
+    static final byte FIELD_CLICK_LIMIT = 2;
+    static final byte FIELD_CLICK_LIMIT_MODE = 3;
+    static final byte FIELD_MOUSE_BUTTON = 4;
+    static final byte FIELD_THEME = 5;
+    static final byte FIELD_TIMING_MODE = 6;
+    static final byte FIELD_TIMING_JITTER = 7;
+    static final byte FIELD_HOLD_MILLIS = 8;
+    static final byte FIELD_HOLD_JITTER = 9;
+    static final byte FIELD_BURST_COUNT = 10;
+    static final byte FIELD_BURST_SPACING_MICROS = 11;
+    static final byte FIELD_BURST_COOLDOWN_MILLIS = 12;
+
+    //compact once dead bytes exceed live bytes (and are worth the rewrite)
+    private static final long COMPACTION_MIN_DEAD_BYTES = 64 * 1024;
+
+    private final Path dbPath;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long end; //append position
+    private long deadBytes;
+    //template name -> offset of its latest PUT record
+    private final TreeMap<String, Long> offsets = new TreeMap<>();
+    private List<String> snapshot;
+
+    private ProfileStore(Path dbPath) {
+        this.dbPath = dbPath;
+    }
+
+    //open (or create) the store in saveDir. a new store imports the existing config.*.properties templates once:
+    //into a staging file that only becomes profiles.db once complete and forced, so a failed or interrupted
+    //migration leaves no store behind and is simply redone on the next open
+    public static ProfileStore open(Path saveDir) throws IOException {
+        Path dbPath = saveDir.resolve(FILE_NAME);
+        if (!Files.exists(dbPath)) {
+            migrate(saveDir, dbPath);
+        }
+        ProfileStore store = new ProfileStore(dbPath);
+        store.openChannel();
+        return store;
+    }
+
+    private static void migrate(Path saveDir, Path dbPath) throws IOException {
+        Path stagingPath = dbPath.resolveSibling(FILE_NAME + ".migrating");
+        Files.deleteIfExists(stagingPath); //left over from an interrupted attempt
+        ProfileStore staging = new ProfileStore(stagingPath);
+        try {
+            staging.openChannel();
+            staging.migrateFrom(saveDir);
+            staging.close();
+            SaveDataManager.moveAtomically(stagingPath, dbPath);
+        } catch (IOException | RuntimeException e) {
+            if (staging.channel != null) staging.channel.close();
+            Files.deleteIfExists(stagingPath);
+            throw e;
+        }
+    }
+
+    private void openChannel() throws IOException {
+        channel = FileChannel.open(dbPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putShort(FORMAT_VERSION).putShort((short) 0).putLong(0);
+            header.flip();
+            channel.write(header, 0);
+        }
+        remap();
+        scan();
+    }
+
+    private void remap() throws IOException {
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    //appends are mapped lazily, on the first read that needs them
+    private void ensureMapped() throws IOException {
+        if (mapped.capacity() < end) {
+            remap();
+        }
+    }
+
+    //rebuild the index from the log; a torn record at the tail (crash mid-append) is cut off
+    private void scan() throws IOException {
+        offsets.clear();
+        snapshot = null;
+        deadBytes = 0;
+
+        if (mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC) {
+            throw new IOException(dbPath + " is not a profile store");
+        }
+        short version = mapped.getShort(4);
+        if (version > FORMAT_VERSION) {
+            throw new IOException(dbPath + " has unsupported format version " + version);
+        }
+
+        long position = HEADER_SIZE;
+        long size = mapped.capacity();
+        while (position + 4 <= size) {
+            int length = mapped.getInt((int) position);
+            if (length < 8 || position + 4 + length > size || !checksumMatches(position, length)) {
+                System.err.println("Truncating damaged profile store tail at offset " + position);
+                channel.truncate(position);
+                remap();
+                break;
+            }
+            byte type = mapped.get((int) position + 4);
+            String name = readString((int) position + 5);
+            Long previous = type == RECORD_PUT ? offsets.put(name, position) : offsets.remove(name);
+            if (previous != null) {
+                deadBytes += recordSize(previous);
+            }
+            if (type == RECORD_DELETE) {
+                deadBytes += 4 + length;
+            }
+            position += 4 + length;
+        }
+        end = position;
+    }
+
+    private boolean checksumMatches(long position, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer body = mapped.slice((int) position + 4, length - 4);
+        crc.update(body);
+        return (int) crc.getValue() == mapped.getInt((int) position + length);
+    }
+
+    private long recordSize(long position) {
+        return 4 + mapped.getInt((int) position);
+    }
+
+    public synchronized void put(String name, ClickerConfig config) throws IOException {
+        ensureMapped();
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        byte[] themeBytes = String.valueOf(config.getTheme()).getBytes(StandardCharsets.UTF_8);
+
+        int bodyLength = 1 + 2 + nameBytes.length + 1
+                + 11 * (2 + 4)
+                + 2 + 2 + themeBytes.length;
+        ByteBuffer record = ByteBuffer.allocate(4 + bodyLength + 4);
+        record.putInt(bodyLength + 4);
+        record.put(RECORD_PUT);
+        record.putShort((short) nameBytes.length).put(nameBytes);
+        record.put((byte) 12);
+        putIntField(record, FIELD_CPS, config.getCps());
+        putIntField(record, FIELD_CLICK_LIMIT, config.getClickLimit());
+        putIntField(record, FIELD_CLICK_LIMIT_MODE, config.isClickLimitMode() ? 1 : 0);
+        putIntField(record, FIELD_MOUSE_BUTTON, config.getMouseButton());
+        putIntField(record, FIELD_TIMING_MODE, config.getTimingMode().ordinal());
+        putIntField(record, FIELD_TIMING_JITTER, config.getTimingJitter());
+        putIntField(record, FIELD_HOLD_MILLIS, config.getHoldMillis());
+        putIntField(record, FIELD_HOLD_JITTER, config.getHoldJitter());
+        putIntField(record, FIELD_BURST_COUNT, config.getBurstCount());
+        putIntField(record, FIELD_BURST_SPACING_MICROS, config.getBurstSpacingMicros());
+        putIntField(record, FIELD_BURST_COOLDOWN_MILLIS, config.getBurstCooldownMillis());
+        record.put(FIELD_THEME).put(KIND_STRING).putShort((short) themeBytes.length).put(themeBytes);
+
+        long offset = append(record);
+        Long previous = offsets.put(name, offset);
+        if (previous != null) {
+            deadBytes += recordSize(previous);
+        } else {
+            snapshot = null;
+        }
+        compactIfWorthwhile();
+    }
+
+    private static void putIntField(ByteBuffer record, byte tag, int value) {
+        record.put(tag).put(KIND_INT).putInt(value);
+    }
+
+    //apply a stored template to config; returns false if it does not exist
+    public synchronized boolean load(String name, ClickerConfig config) throws IOException {
+        Long offset = offsets.get(name);
+        if (offset == null) return false;
+        ensureMapped();
+
+        int position = offset.intValue() + 5;
+        position += 2 + (mapped.getShort(position) & 0xFFFF); //name
+        int fieldCount = mapped.get(position++);
+
+        int cps = ClickerConfig.CPS_DEFAULT;
+        int clickLimit = ClickerConfig.CLICK_LIMIT_DEFAULT;
+        boolean clickLimitMode = ClickerConfig.CLICK_LIMIT_MODE_DEFAULT;
+        int mouseButton = ClickerConfig.MOUSE_BUTTON_DEFAULT;
+        String theme = ClickerConfig.THEME_DEFAULT;
+        TimingMode timingMode = ClickerConfig.TIMING_MODE_DEFAULT;
+        int timingJitter = ClickerConfig.TIMING_JITTER_DEFAULT;
+        int holdMillis = ClickerConfig.HOLD_MILLIS_DEFAULT;
+        int holdJitter = ClickerConfig.HOLD_JITTER_DEFAULT;
+        int burstCount = ClickerConfig.BURST_COUNT_DEFAULT;
+        int burstSpacingMicros = ClickerConfig.BURST_SPACING_MICROS_DEFAULT;
+        int burstCooldownMillis = ClickerConfig.BURST_COOLDOWN_MILLIS_DEFAULT;
+
+        for (int i = 0; i < fieldCount; i++) {
+            byte tag = mapped.get(position);
+            byte kind = mapped.get(position + 1);
+            position += 2;
+            if (kind == KIND_INT) {
+                int value = mapped.getInt(position);
+                position += 4;
+                switch (tag) {
+                    case FIELD_CPS -> cps = value;
+                    case FIELD_CLICK_LIMIT -> clickLimit = value;
+                    case FIELD_CLICK_LIMIT_MODE -> clickLimitMode = value != 0;
+                    case FIELD_MOUSE_BUTTON -> mouseButton = value;
+                    case FIELD_TIMING_MODE -> timingMode = value >= 0 && value < TimingMode.values().length
+                            ? TimingMode.values()[value] : ClickerConfig.TIMING_MODE_DEFAULT;
+                    case FIELD_TIMING_JITTER -> timingJitter = value;
+                    case FIELD_HOLD_MILLIS -> holdMillis = value;
+                    case FIELD_HOLD_JITTER -> holdJitter = value;
+                    case FIELD_BURST_COUNT -> burstCount = value;
+                    case FIELD_BURST_SPACING_MICROS -> burstSpacingMicros = value;
+                    case FIELD_BURST_COOLDOWN_MILLIS -> burstCooldownMillis = value;
+                    default -> { } //field from a newer version
+                }
+            } else {
+                String value = readString(position);
+                position += 2 + (mapped.getShort(position) & 0xFFFF);
+                if (tag == FIELD_THEME) theme = value;
+            }
+        }
+
+        config.setCps(cps);
+        config.setClickLimit(clickLimit);
+        config.setClickLimitMode(clickLimitMode);
+        config.setMouseButton(mouseButton);
+        config.setTheme(theme);
+        config.setTimingMode(timingMode);
+        config.setTimingJitter(timingJitter);
+        config.setHoldMillis(holdMillis);
+        config.setHoldJitter(holdJitter);
+        config.setBurstCount(burstCount);
+        config.setBurstSpacingMicros(burstSpacingMicros);
+        config.setBurstCooldownMillis(burstCooldownMillis);
+        return true;
+    }
+
+    public synchronized void delete(String name) throws IOException {
+        Long previous = offsets.remove(name);
+        if (previous == null) return;
+        ensureMapped();
+
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        int bodyLength = 1 + 2 + nameBytes.length;
+        ByteBuffer record = ByteBuffer.allocate(4 + bodyLength + 4);
+        record.putInt(bodyLength + 4);
+        record.put(RECORD_DELETE);
+        record.putShort((short) nameBytes.length).put(nameBytes);
+        append(record);
+
+        deadBytes += recordSize(previous) + record.capacity();
+        snapshot = null;
+        compactIfWorthwhile();
+    }
+
+    public synchronized boolean contains(String name) {
+        return offsets.containsKey(name);
+    }
+
+    //sorted names, cached until the next add/remove
+    public synchronized List<String> names() {
+        if (snapshot == null) {
+            snapshot = List.copyOf(offsets.keySet());
+        }
+        return snapshot;
+    }
+
+    //fill in the CRC and append at the end of the log
+    private long append(ByteBuffer record) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 4, record.capacity() - 8);
+        record.putInt((int) crc.getValue());
+        record.flip();
+
+        long offset = end;
+        while (record.hasRemaining()) {
+            channel.write(record, end + record.position());
+        }
+        end += record.capacity();
+        return offset;
+    }
+
+    private void compactIfWorthwhile() throws IOException {
+        long liveBytes = end - HEADER_SIZE - deadBytes;
+        if (deadBytes > COMPACTION_MIN_DEAD_BYTES && deadBytes > liveBytes) {
+            compact();
+        }
+    }
+
+    //rewrite only the live records into a fresh file and swap it in atomically
+    public synchronized void compact() throws IOException {
+        ensureMapped();
+        Path tempPath = dbPath.resolveSibling(FILE_NAME + ".tmp");
+        try (FileChannel out = FileChannel.open(tempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putShort(FORMAT_VERSION).putShort((short) 0).putLong(0);
+            header.flip();
+            out.write(header);
+            for (long offset : offsets.values()) {
+                out.write(mapped.slice((int) offset, (int) recordSize(offset)));
+            }
+            out.force(true);
+        }
+
+        channel.close();
+        mapped = null;
+        try {
+            try {
+                Files.move(tempPath, dbPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempPath, dbPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            //e.g. Windows refusing to replace a file that is still mapped: keep the uncompacted log
+            System.err.println("Profile store compaction skipped: " + e.getMessage());
+            Files.deleteIfExists(tempPath);
+        }
+        openChannel();
+    }
+
+    //one-time import of the one-file-per-template layout; the .properties files are left in place
+    private void migrateFrom(Path saveDir) throws IOException {
+        ClickerConfig template = new ClickerConfig();
+        int imported = 0;
+        try (Stream<Path> files = Files.list(saveDir)) {
+            for (Path path : (Iterable<Path>) files::iterator) {
+                String fileName = path.getFileName().toString();
+                if (!fileName.endsWith(".properties")) continue;
+
+                Properties configProps = new Properties();
+                try (InputStream input = Files.newInputStream(path)) {
+                    configProps.load(input);
+                } catch (IOException e) {
+                    System.err.println("Skipping " + fileName + " during migration: " + e.getMessage());
+                    continue;
+                }
+                SaveDataManager.applyProperties(configProps, template);
+                put(TemplateIndex.templateNameOf(path), template);
+                imported++;
+            }
+        }
+        channel.force(true);
+        if (imported > 0) {
+            System.out.println("Migrated " + imported + " config templates into " + FILE_NAME);
+        }
+    }
+
+    private String readString(int position) {
+        int length = mapped.getShort(position) & 0xFFFF;
+        byte[] bytes = new byte[length];
+        mapped.get(position + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+        mapped = null;
+    }
+}
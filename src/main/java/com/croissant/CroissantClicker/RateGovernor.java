@@ -0,0 +1,182 @@
+package com.croissant.CroissantClicker;
+
+//closed-loop rate control for the click loop. deadlines alone can't promise a rate: a slow click output (busy X
+//server, loaded OS) makes clicks fire late, and ClickScheduler then drops the backlog, so the delivered rate quietly
+//falls short. the governor measures completed clicks over a sliding window and scales the next intervals:
+//  - short of the target: the rate is boosted (integral control, up to +25%) to make up for lost ticks
+//  - the scheduler already makes up (or deliberately drops) ticks it fell behind on, so while the window holds
+//    clicks it reported behind, the boost is not raised (anti-windup): a lag is never made up twice, and a dropped
+//    backlog doesn't come back as boost
+//  - still short at full boost, or short while the scheduler keeps falling behind, for a second: the host is
+//    saturated. the rate is capped at what was delivered so deadlines stop running late (no backlog), then probed
+//    back up 10% per window while it keeps up
+//state is written by the click thread only; the getters are lock-free reads for the UI and metrics.
+//disable with -Dcroissant.governor=false
+public class RateGovernor {
+
+    public static final String ENABLED_PROPERTY = "croissant.governor";
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    //completion times kept for the window; covers one second at the maximum rate
+    private static final int RING_SIZE = 1024;
+    private static final int RING_MASK = RING_SIZE - 1;
+    //window spans at least this long and at least this many periods
+    private static final long MIN_WINDOW_NANOS = NANOS_PER_SECOND;
+    private static final int MIN_WINDOW_PERIODS = 8;
+    //no control before the window has this much data
+    private static final int MIN_SAMPLES = 4;
+    private static final double BOOST_MIN = 0.9;
+    private static final double BOOST_MAX = 1.25;
+    //boost change per second per unit of relative rate error
+    private static final double GAIN_PER_SECOND = 0.5;
+    //delivered within this share of the target (or ceiling) counts as keeping up
+    private static final double TOLERANCE = 0.03;
+    private static final long SATURATION_HOLD_NANOS = NANOS_PER_SECOND;
+    private static final double PROBE_STEP = 1.1;
+
+    private final boolean enabled;
+    private final long[] completions = new long[RING_SIZE];
+    private int head;
+    private int size;
+    private int targetCps;
+    private long windowNanos;
+    private long lastUpdate;
+    private long shortSince;
+    private long lastCeilingChange;
+    private long lastBehind; //completion of the last click the scheduler reported behind, 0 = none in this run
+    private double boost = 1.0;
+
+    //published for readers
+    private volatile double measuredCps;
+    private volatile double ceilingCps; //0 = no cap (not saturated)
+    private volatile long saturations; //times the target was found unreachable
+
+    public RateGovernor() {
+        this(!"false".equals(System.getProperty(ENABLED_PROPERTY)));
+    }
+
+    public RateGovernor(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    //start of a run, or a new target rate: forget the old window
+    public void reset(int targetCps) {
+        this.targetCps = targetCps;
+        windowNanos = Math.max(MIN_WINDOW_NANOS, MIN_WINDOW_PERIODS * NANOS_PER_SECOND / targetCps);
+        head = 0;
+        size = 0;
+        lastUpdate = 0;
+        shortSince = 0;
+        lastBehind = 0;
+        boost = 1.0;
+        measuredCps = 0;
+        ceilingCps = 0;
+    }
+
+    public boolean isSaturated() {
+        return ceilingCps > 0;
+    }
+
+    public double getMeasuredCps() {
+        return measuredCps;
+    }
+
+    //rate the host currently keeps up with while saturated, else the target
+    public double getSustainableCps() {
+        double ceiling = ceilingCps;
+        return ceiling > 0 ? ceiling : targetCps;
+    }
+
+    public long getSaturations() {
+        return saturations;
+    }
+
+    //true while the intervals differ from the nominal ones (the fixed-rate path can skip the division)
+    public boolean isAdjusting() {
+        return enabled && (boost != 1.0 || ceilingCps > 0);
+    }
+
+    //scale a nominal interval (fixed or randomized) to the governed rate, keeping the distribution's shape
+    public long adjust(long nominalIntervalNanos) {
+        if (!isAdjusting()) return nominalIntervalNanos;
+        double cps = targetCps * boost;
+        double ceiling = ceilingCps;
+        if (ceiling > 0) cps = Math.min(cps, ceiling);
+        return (long) (nominalIntervalNanos * (targetCps / cps));
+    }
+
+    //a click completed (released) at completedNanos; behind = its deadline was a catch-up or resync deadline
+    //(ClickScheduler.isBehind()), so its lateness is already being handled by the scheduler
+    public void onClick(long completedNanos, boolean behind) {
+        if (!enabled) return;
+        if (behind) lastBehind = completedNanos;
+
+        completions[head] = completedNanos;
+        head = (head + 1) & RING_MASK;
+        if (size < RING_SIZE) size++;
+        while (size > 1 && completedNanos - completions[(head - size) & RING_MASK] > windowNanos) {
+            size--;
+        }
+
+        long oldest = completions[(head - size) & RING_MASK];
+        long span = completedNanos - oldest;
+        if (size < MIN_SAMPLES || span <= 0) return;
+        double measured = (size - 1) * (double) NANOS_PER_SECOND / span;
+        measuredCps = measured;
+        if (span < windowNanos / 4) return; //too little history to act on
+
+        double dt = lastUpdate == 0 ? 0 : (completedNanos - lastUpdate) / (double) NANOS_PER_SECOND;
+        lastUpdate = completedNanos;
+
+        double ceiling = ceilingCps;
+        if (ceiling > 0) {
+            governSaturated(measured, ceiling, completedNanos);
+            return;
+        }
+
+        double error = (targetCps - measured) / targetCps;
+        boolean schedulerLagging = lastBehind != 0 && completedNanos - lastBehind < windowNanos;
+        if (!schedulerLagging || error < 0) {
+            boost = Math.clamp(boost + GAIN_PER_SECOND * error * dt, BOOST_MIN, BOOST_MAX);
+        }
+
+        //short of the target with everything already thrown at it, or although deadlines keep running late:
+        //the host can't do more
+        if (measured < targetCps * (1 - TOLERANCE) && (boost >= BOOST_MAX || schedulerLagging)) {
+            if (shortSince == 0) {
+                shortSince = completedNanos;
+            } else if (completedNanos - shortSince >= SATURATION_HOLD_NANOS) {
+                enterSaturation(measured, completedNanos);
+            }
+        } else {
+            shortSince = 0;
+        }
+    }
+
+    private void enterSaturation(double measured, long now) {
+        ceilingCps = measured;
+        lastCeilingChange = now;
+        boost = 1.0;
+        saturations++;
+
+        ClickerEvents.RateSaturation event = new ClickerEvents.RateSaturation();
+        if (event.shouldCommit()) {
+            event.targetCps = targetCps;
+            event.sustainableCps = measured;
+            event.commit();
+        }
+    }
+
+    //judged once per window, after the last change has fully played out
+    private void governSaturated(double measured, double ceiling, long now) {
+        if (now - lastCeilingChange < windowNanos) return;
+        lastCeilingChange = now;
+        if (measured < ceiling * (1 - TOLERANCE)) {
+            ceilingCps = measured; //can't even hold the cap: back off to what came through
+        } else if (ceiling * PROBE_STEP >= targetCps) {
+            ceilingCps = 0; //target reachable again
+            shortSince = 0;
+        } else {
+            ceilingCps = ceiling * PROBE_STEP;
+        }
+    }
+}
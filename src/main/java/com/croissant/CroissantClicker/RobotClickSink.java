@@ -0,0 +1,44 @@
+package com.croissant.CroissantClicker;
+
+import java.awt.*;
+
+//default backend: java.awt.Robot with its stock settings, which are already the fast ones (no auto delay, no
+//waitForIdle after each event)
+public class RobotClickSink implements ClickSink {
+
+    protected final Robot robot;
+
+    public RobotClickSink() throws AWTException {
+        this.robot = new Robot();
+    }
+
+    @Override
+    public void press(int mouseButton) {
+        robot.mousePress(mouseButton);
+    }
+
+    @Override
+    public void release(int mouseButton) {
+        robot.mouseRelease(mouseButton);
+    }
+
+    @Override
+    public void moveTo(int x, int y) {
+        robot.mouseMove(x, y);
+    }
+
+    @Override
+    public void keyPress(int keyCode) {
+        robot.keyPress(keyCode);
+    }
+
+    @Override
+    public void keyRelease(int keyCode) {
+        robot.keyRelease(keyCode);
+    }
+
+    @Override
+    public String getName() {
+        return "robot";
+    }
+}
@@ -1,22 +1,63 @@
 package com.croissant.CroissantClicker;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 
 public class SaveDataManager {
     private static final String APP_NAME = "CroissantClicker";
+    //overrides the OS specific save location (benchmarks, portable installs)
+    public static final String SAVE_DIR_PROPERTY = "croissant.saveDir";
+    //template storage engine: "properties" (one file per template, default) or "binary" (single-file ProfileStore)
+    public static final String STORAGE_PROPERTY = "croissant.storage";
+    private static final boolean USE_PROFILE_STORE = "binary".equals(System.getProperty(STORAGE_PROPERTY));
 
-    private static Path getSaveDirectory() throws IOException{
+    //resolved and created once, then reused by every save/load/delete
+    private static volatile Path cachedSaveDir;
+    private static volatile TemplateIndex templateIndex;
+    private static volatile ProfileStore profileStore;
+
+    //live save stats for the metrics endpoints, updated lock-free by whichever thread saves
+    private static final AtomicInteger autosaveQueueDepth = new AtomicInteger();
+    private static final LongAdder saveCount = new LongAdder();
+    private static final LongAdder saveNanosTotal = new LongAdder();
+    private static final AtomicLong maxSaveNanos = new AtomicLong();
+    private static volatile long lastSaveNanos;
+
+    static Path getSaveDirectory() throws IOException{
+        Path saveDir = cachedSaveDir;
+        if (saveDir == null){
+            synchronized (SaveDataManager.class){
+                saveDir = cachedSaveDir;
+                if (saveDir == null){
+                    saveDir = resolveSaveDirectory();
+                    //if directory doesn't exist, create directory.
+                    Files.createDirectories(saveDir);
+                    cachedSaveDir = saveDir;
+                }
+            }
+        }
+        return saveDir;
+    }
+
+    private static Path resolveSaveDirectory(){
         String os = System.getProperty("os.name").toLowerCase();
+        String overrideDir = System.getProperty(SAVE_DIR_PROPERTY);
         Path saveDir;
 
-        if (os.contains("win")){
+        if (overrideDir != null){
+            saveDir = Paths.get(overrideDir);
+        }else if (os.contains("win")){
             String localAppData = System.getenv("LOCALAPPDATA");
             if (localAppData == null) {
                 localAppData = System.getProperty("user.home");
@@ -27,111 +68,297 @@ public class SaveDataManager {
         } else{
             saveDir = Paths.get(System.getProperty("user.home"), "." + APP_NAME.toLowerCase(), "saves");
         }
-        //if directory doesn't exist, create directory.
-        Files.createDirectories(saveDir);
-
         return saveDir;
     }
 
-    public static void save(ClickerConfig config, String configName){
-        try{
-            //get save file path
-            Path saveDir = getSaveDirectory();
-            Path filePath = saveDir.resolve(createFileName(configName));
+    //recorded macros live in their own subdirectory: <save dir>/macros/<name>.macro
+    public static Path getMacroFile(String macroName) throws IOException{
+        Path macroDir = getSaveDirectory().resolve("macros");
+        Files.createDirectories(macroDir);
+        return macroDir.resolve(macroName + ".macro");
+    }
+
+    //custom look and feel files (ThemeManager): <save dir>/themes/<name>.properties
+    public static Path getThemeDirectory() throws IOException{
+        Path themeDir = getSaveDirectory().resolve("themes");
+        Files.createDirectories(themeDir);
+        return themeDir;
+    }
+
+    //append-only log of finished runs, see SessionHistory
+    public static Path getHistoryFile() throws IOException{
+        return getSaveDirectory().resolve(SessionHistory.FILE_NAME);
+    }
 
-            //save new config data into properties
-            Properties configProps = new Properties();
-            configProps.setProperty("configName", configName);
-            configProps.setProperty("version",ClickerConfig.APP_VERSION);
-            configProps.setProperty("cps",String.valueOf(config.getCps()));
-            configProps.setProperty("clickLimit",String.valueOf(config.getClickLimit()));
-            configProps.setProperty("clickLimitMode",String.valueOf(config.isClickLimitMode()));
-            configProps.setProperty("mouseButton",String.valueOf(config.getMouseButton()));
-            configProps.setProperty("theme", config.getTheme());
-
-            try (OutputStream output = Files.newOutputStream(filePath)) {
-                configProps.store(output, "User Save Data Configuration: " + configName);
+    //global hotkey bindings (HotkeyEngine). not a .properties name so the template index never lists it
+    public static Path getHotkeyFile() throws IOException{
+        return getSaveDirectory().resolve("hotkeys.conf");
+    }
+
+    //template index, built from the save directory on first use
+    private static TemplateIndex getTemplateIndex() throws IOException{
+        TemplateIndex index = templateIndex;
+        if (index == null){
+            synchronized (SaveDataManager.class){
+                index = templateIndex;
+                if (index == null){
+                    index = new TemplateIndex(getSaveDirectory());
+                    index.rebuild();
+                    templateIndex = index;
+                }
             }
+        }
+        return index;
+    }
 
-            }catch (IOException e){
-            System.err.println("Error saving data: " + e.getMessage());
+    //single-file store, opened (and migrated into on first use) lazily
+    private static ProfileStore getProfileStore() throws IOException{
+        ProfileStore store = profileStore;
+        if (store == null){
+            synchronized (SaveDataManager.class){
+                store = profileStore;
+                if (store == null){
+                    store = ProfileStore.open(getSaveDirectory());
+                    profileStore = store;
+                }
+            }
         }
+        return store;
     }
 
-    public static void load(ClickerConfig config, String configName){
+    //build the template index (or open the profile store) at startup and keep it in sync with outside changes
+    public static void initTemplateIndex(){
+        try {
+            if (USE_PROFILE_STORE){
+                getProfileStore();
+                return;
+            }
+            getTemplateIndex().startWatching();
+        } catch (IOException e) {
+            System.err.println("Error initializing template index: " + e.getMessage());
+        }
+    }
+
+    public static void save(ClickerConfig config, String configName){
+        ClickerEvents.Persistence event = beginEvent("save", configName);
+        long saveStart = System.nanoTime();
         try{
-            //get save directory of savedata
-            Path saveDir = getSaveDirectory();
-            Path filePath = saveDir.resolve(createFileName(configName));
+            long bytes = write(config, configName);
+            if (event.isEnabled()) event.bytes = bytes;
+        }catch (IOException e){
+            System.err.println("Error saving data: " + e.getMessage());
+        } finally {
+            recordSave(System.nanoTime() - saveStart);
+            event.commit();
+        }
+    }
 
-            if (!Files.exists(filePath)) {
-                return; //specified file does not exist, use defaults already in ClickerConfig
-            }
+    //store one template without events or stats (bulk import reports as a whole); returns the bytes written
+    static long write(ClickerConfig config, String configName) throws IOException{
+        if (USE_PROFILE_STORE){
+            getProfileStore().put(configName, config);
+            return 0;
+        }
 
-            Properties configProps = new Properties();
+        //get save file path
+        Path saveDir = getSaveDirectory();
+        Path filePath = saveDir.resolve(createFileName(configName));
 
-            try (InputStream input = Files.newInputStream(filePath)){
-                configProps.load(input);
+        //write to a temp file then rename over the target, so a crash mid-write never leaves a truncated save
+        Path tempPath = saveDir.resolve(createFileName(configName) + ".tmp");
+        try (OutputStream output = Files.newOutputStream(tempPath)) {
+            toProperties(config, configName).store(output, "User Save Data Configuration: " + configName);
+        }
+        moveAtomically(tempPath, filePath);
+        getTemplateIndex().onSaved(filePath.getFileName().toString(), configName);
+        return Files.size(filePath);
+    }
 
-                //load config values by keys and store in clickerconfig
-                config.setCps(parseIntSafe(configProps.getProperty("cps"),
-                        ClickerConfig.CPS_DEFAULT));
-                config.setClickLimit(parseIntSafe(configProps.getProperty("clickLimit"),
-                        ClickerConfig.CLICK_LIMIT_DEFAULT));
-                config.setClickLimitMode(Boolean.parseBoolean(configProps.getProperty("clickLimitMode",String.valueOf(ClickerConfig.CLICK_LIMIT_MODE_DEFAULT))));
-                config.setMouseButton(parseIntSafe(configProps.getProperty("mouseButton"),
-                        ClickerConfig.MOUSE_BUTTON_DEFAULT));
-                config.setTheme(configProps.getProperty("theme", ClickerConfig.THEME_DEFAULT));
+    //save new config data into properties
+    static Properties toProperties(ClickerConfig config, String configName){
+        Properties configProps = new Properties();
+        configProps.setProperty("configName", configName);
+        configProps.setProperty("version",ClickerConfig.APP_VERSION);
+        configProps.setProperty("cps",String.valueOf(config.getCps()));
+        configProps.setProperty("clickLimit",String.valueOf(config.getClickLimit()));
+        configProps.setProperty("clickLimitMode",String.valueOf(config.isClickLimitMode()));
+        configProps.setProperty("mouseButton",String.valueOf(config.getMouseButton()));
+        configProps.setProperty("theme", config.getTheme());
+        configProps.setProperty("timingMode", config.getTimingMode().name());
+        configProps.setProperty("timingJitter", String.valueOf(config.getTimingJitter()));
+        configProps.setProperty("holdMillis", String.valueOf(config.getHoldMillis()));
+        configProps.setProperty("holdJitter", String.valueOf(config.getHoldJitter()));
+        configProps.setProperty("burstCount", String.valueOf(config.getBurstCount()));
+        configProps.setProperty("burstSpacingMicros", String.valueOf(config.getBurstSpacingMicros()));
+        configProps.setProperty("burstCooldownMillis", String.valueOf(config.getBurstCooldownMillis()));
+        return configProps;
+    }
 
-            }
+    public static void load(ClickerConfig config, String configName){
+        ClickerEvents.Persistence event = beginEvent("load", configName);
+        try{
+            //missing template: keep defaults already in ClickerConfig
+            long bytes = read(config, configName);
+            if (bytes < 0) return;
+            config.setProfileName(configName);
+            if (event.isEnabled()) event.bytes = bytes;
         } catch(IOException e) {
             System.err.println("Error loading config: " + e.getMessage());
+        } finally {
+            event.commit();
         }
     }
 
-    public static ArrayList<String> loadAllConfigTemplateNames(){
+    //apply one stored template to config without events (bulk export); returns the bytes read, -1 if it doesn't exist
+    static long read(ClickerConfig config, String configName) throws IOException{
+        if (USE_PROFILE_STORE){
+            return getProfileStore().load(configName, config) ? 0 : -1;
+        }
 
-        ArrayList<String> configTemplateNames = new ArrayList<>();
-        Properties configProps = new Properties();
+        //get save directory of savedata
+        Path saveDir = getSaveDirectory();
+        Path filePath = saveDir.resolve(createFileName(configName));
 
-        try {
-            Path saveDir = getSaveDirectory();
-            File[] configFiles = saveDir.toFile().listFiles((dir, name) -> name.endsWith(".properties"));
+        if (!Files.exists(filePath)) {
+            return -1; //specified file does not exist
+        }
 
-            if (configFiles == null || configFiles.length == 0){ //no stored save data
-                return new ArrayList<>();
-            }
+        Properties configProps = new Properties();
 
-            //load all config names into array
-            for (File configFile : configFiles){
-                Path filePath = saveDir.resolve(configFile.getName());
+        try (InputStream input = Files.newInputStream(filePath)){
+            configProps.load(input);
 
-                try (InputStream input = Files.newInputStream(filePath)){
-                    configProps.load(input);
+            applyProperties(configProps, config);
+        }
+        return Files.size(filePath);
+    }
 
-                    configTemplateNames.add(configProps.getProperty("configName","NAME_MISSING"));
-                } catch (IOException e){
-                    System.err.println("Failed to load configFile " + configFile.getName() + ": " + e.getMessage());
-                }
-            }
-            Collections.sort(configTemplateNames);
-            return configTemplateNames;
+    //load config values by keys and store in clickerconfig
+    static void applyProperties(Properties configProps, ClickerConfig config){
+        config.setCps(parseIntSafe(configProps.getProperty("cps"),
+                ClickerConfig.CPS_DEFAULT));
+        config.setClickLimit(parseIntSafe(configProps.getProperty("clickLimit"),
+                ClickerConfig.CLICK_LIMIT_DEFAULT));
+        config.setClickLimitMode(Boolean.parseBoolean(configProps.getProperty("clickLimitMode",String.valueOf(ClickerConfig.CLICK_LIMIT_MODE_DEFAULT))));
+        config.setMouseButton(parseIntSafe(configProps.getProperty("mouseButton"),
+                ClickerConfig.MOUSE_BUTTON_DEFAULT));
+        config.setTheme(configProps.getProperty("theme", ClickerConfig.THEME_DEFAULT));
+        config.setTimingMode(TimingMode.fromName(configProps.getProperty("timingMode"),
+                ClickerConfig.TIMING_MODE_DEFAULT));
+        config.setTimingJitter(parseIntSafe(configProps.getProperty("timingJitter"),
+                ClickerConfig.TIMING_JITTER_DEFAULT));
+        config.setHoldMillis(parseIntSafe(configProps.getProperty("holdMillis"),
+                ClickerConfig.HOLD_MILLIS_DEFAULT));
+        config.setHoldJitter(parseIntSafe(configProps.getProperty("holdJitter"),
+                ClickerConfig.HOLD_JITTER_DEFAULT));
+        config.setBurstCount(parseIntSafe(configProps.getProperty("burstCount"),
+                ClickerConfig.BURST_COUNT_DEFAULT));
+        config.setBurstSpacingMicros(parseIntSafe(configProps.getProperty("burstSpacingMicros"),
+                ClickerConfig.BURST_SPACING_MICROS_DEFAULT));
+        config.setBurstCooldownMillis(parseIntSafe(configProps.getProperty("burstCooldownMillis"),
+                ClickerConfig.BURST_COOLDOWN_MILLIS_DEFAULT));
+    }
+
+    public static ArrayList<String> loadAllConfigTemplateNames(){
+        return new ArrayList<>(getConfigTemplateNames());
+    }
 
+    //sorted, read-only view of all template names straight from the index (no disk access)
+    public static List<String> getConfigTemplateNames(){
+        ClickerEvents.Persistence event = beginEvent("list", null);
+        List<String> names = List.of();
+        try {
+            names = USE_PROFILE_STORE ? getProfileStore().names() : getTemplateIndex().list();
         } catch (IOException e) {
             System.err.println("Error loading all config template names: " + e.getMessage());
-            return new ArrayList<>();
+        } finally {
+            event.templates = names.size();
+            event.commit();
+        }
+        return names;
+    }
+
+    public static boolean exists(String configName){
+        try {
+            return USE_PROFILE_STORE ? getProfileStore().contains(configName) : getTemplateIndex().contains(configName);
+        } catch (IOException e) {
+            System.err.println("Error looking up config template: " + e.getMessage());
+            return false;
         }
     }
 
     public static void delete(String configName){
+        ClickerEvents.Persistence event = beginEvent("delete", configName);
         try{
+            if (USE_PROFILE_STORE){
+                getProfileStore().delete(configName);
+                return;
+            }
+
             Path saveDir = getSaveDirectory();
             Path filePath = saveDir.resolve(createFileName(configName));
 
             Files.deleteIfExists(filePath);
+            getTemplateIndex().onDeleted(filePath.getFileName().toString());
 
         } catch(IOException e) {
             System.err.println("Error deleting config: " + e.getMessage());
+        } finally {
+            event.commit();
+        }
+    }
+
+    private static void recordSave(long nanos){
+        saveCount.increment();
+        saveNanosTotal.add(nanos);
+        lastSaveNanos = nanos;
+        maxSaveNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    //autosave changes waiting to be written: incremented per request, cleared when the writer picks them up
+    static void autosaveQueued(){
+        autosaveQueueDepth.incrementAndGet();
+    }
+
+    static void autosaveDrained(){
+        autosaveQueueDepth.set(0);
+    }
+
+    public static int getAutosaveQueueDepth(){
+        return autosaveQueueDepth.get();
+    }
+
+    public static long getSaveCount(){
+        return saveCount.sum();
+    }
+
+    public static long getSaveNanosTotal(){
+        return saveNanosTotal.sum();
+    }
+
+    public static long getLastSaveNanos(){
+        return lastSaveNanos;
+    }
+
+    public static long getMaxSaveNanos(){
+        return maxSaveNanos.get();
+    }
+
+    //JFR event for one template operation; committed by the caller once it is done
+    static ClickerEvents.Persistence beginEvent(String operation, String configName){
+        ClickerEvents.Persistence event = new ClickerEvents.Persistence();
+        event.begin();
+        event.operation = operation;
+        event.template = configName;
+        event.backend = USE_PROFILE_STORE ? "binary" : "properties";
+        return event;
+    }
+
+    static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
@@ -0,0 +1,370 @@
+package com.croissant.CroissantClicker;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+//append-only log of finished click runs (history.log next to the saves), with totals per day and per profile.
+//record() hands a run over through a lock-free queue and never blocks the caller (the click thread); a background
+//thread appends it to a memory-mapped file that grows in 1 MiB chunks. records are fixed size, so a reader walks the
+//file window by window in bounded memory, and a torn record at the tail (crash mid-append) fails its CRC and is skipped.
+//
+//layout:  header = magic "CRSH" (int) | format version (short) | record size (short) | record count (long)
+//         record = start epoch millis (long) | duration nanos (long) | clicks (long) | achieved cps (double)
+//                  | target cps (int) | stop reason (byte) | profile length (byte) | profile UTF-8 (22 bytes, zero padded)
+//                  | CRC32 of the 60 bytes before it (int)
+//profile names longer than 22 bytes are cut at a character boundary.
+public class SessionHistory implements AutoCloseable {
+
+    public static final String FILE_NAME = "history.log";
+    private static final int MAGIC = 0x43525348; //"CRSH"
+    private static final short FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 64;
+    private static final int PROFILE_OFFSET = 38;
+    private static final int PROFILE_BYTES = 22;
+    private static final int CRC_OFFSET = 60;
+    //the writer maps the file this much at a time (16384 runs)
+    private static final long WRITE_CHUNK = 1L << 20;
+    //readers map at most this much at a time (262144 runs)
+    private static final long READ_WINDOW = 16L << 20;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    public enum StopReason {
+        STOPPED, //toggled off, hold key released, headless duration or shutdown
+        LIMIT //click limit reached
+    }
+
+    public record Run(long startMillis, long durationNanos, String profile, int targetCps, double achievedCps,
+                      long clicks, StopReason reason) {
+    }
+
+    //aggregate over a group of runs
+    public static final class Totals {
+        private long runs;
+        private long clicks;
+        private long durationNanos;
+
+        private void add(long clicks, long durationNanos) {
+            this.runs++;
+            this.clicks += clicks;
+            this.durationNanos += durationNanos;
+        }
+
+        public long getRuns() {
+            return runs;
+        }
+
+        public long getClicks() {
+            return clicks;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        //clicks per second over all the runs' time together
+        public double getAverageCps() {
+            return durationNanos == 0 ? 0 : clicks * 1e9 / durationNanos;
+        }
+    }
+
+    private final Path file; //null: resolve <save dir>/history.log on first write
+    private final ConcurrentLinkedQueue<Run> queue = new ConcurrentLinkedQueue<>();
+    private final Thread writer;
+    private volatile boolean closed = false;
+
+    //writer thread only
+    private FileChannel channel;
+    private MappedByteBuffer header;
+    private MappedByteBuffer chunk; //covers [chunkStart, chunkStart + WRITE_CHUNK)
+    private long chunkStart;
+    private long count;
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+
+    public SessionHistory() {
+        this(null);
+    }
+
+    public SessionHistory(Path file) {
+        this.file = file;
+        writer = new Thread(this::writerLoop, "history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    //queue a finished run for the writer; lock-free, safe from any thread
+    public void record(Run run) {
+        if (closed) return;
+        queue.offer(run);
+        LockSupport.unpark(writer);
+    }
+
+    //register as shutdown hook so runs finished just before exit are still written
+    public void installShutdownHook() {
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "history-flush"));
+    }
+
+    //write everything queued so far, then stop the writer
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writerLoop() {
+        while (true) {
+            Run run;
+            while ((run = queue.poll()) != null) {
+                try {
+                    append(run);
+                } catch (IOException e) {
+                    System.err.println("Error writing run history: " + e.getMessage());
+                }
+            }
+            if (closed) break;
+            LockSupport.park(this);
+        }
+        closeFile();
+    }
+
+    private void append(Run run) throws IOException {
+        if (channel == null) {
+            openFile(file != null ? file : SaveDataManager.getHistoryFile());
+        }
+
+        record.clear();
+        record.putLong(run.startMillis()).putLong(run.durationNanos()).putLong(run.clicks())
+                .putDouble(run.achievedCps()).putInt(run.targetCps()).put((byte) run.reason().ordinal());
+        byte[] profile = truncateUtf8(run.profile() == null ? "" : run.profile());
+        record.put((byte) profile.length).put(profile).put(new byte[PROFILE_BYTES - profile.length]);
+        crc.reset();
+        crc.update(record.array(), 0, CRC_OFFSET);
+        record.putInt((int) crc.getValue());
+
+        long position = HEADER_SIZE + count * RECORD_SIZE;
+        if (chunk == null || position + RECORD_SIZE > chunkStart + WRITE_CHUNK) {
+            chunkStart = position;
+            chunk = channel.map(FileChannel.MapMode.READ_WRITE, chunkStart, WRITE_CHUNK); //grows the file
+        }
+        chunk.put((int) (position - chunkStart), record.array());
+        //record first, count second: a reader never trusts a count ahead of the data
+        header.putLong(8, ++count);
+    }
+
+    private void openFile(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        boolean fresh = channel.size() == 0;
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        if (fresh) {
+            header.putInt(0, MAGIC).putShort(4, FORMAT_VERSION).putShort(6, (short) RECORD_SIZE).putLong(8, 0);
+        } else {
+            try {
+                checkHeader(header, path);
+            } catch (IOException e) {
+                channel.close(); //leave a foreign file alone, retried on the next run
+                channel = null;
+                throw e;
+            }
+        }
+        count = header.getLong(8);
+
+        //the count lags the data if the process died between the two writes: pick up complete records past it
+        ByteBuffer probe = ByteBuffer.allocate(RECORD_SIZE);
+        long size = channel.size();
+        while (HEADER_SIZE + (count + 1) * RECORD_SIZE <= size) {
+            probe.clear();
+            channel.read(probe, HEADER_SIZE + count * RECORD_SIZE);
+            if (!isValid(crc, probe, 0)) break;
+            count++;
+        }
+        header.putLong(8, count);
+    }
+
+    private void closeFile() {
+        if (channel == null) return;
+        try {
+            if (chunk != null) chunk.force();
+            header.force();
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing run history: " + e.getMessage());
+        }
+        channel = null;
+        chunk = null;
+        header = null;
+    }
+
+    private static byte[] truncateUtf8(String profile) {
+        byte[] bytes = profile.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length <= PROFILE_BYTES) return bytes;
+        int length = PROFILE_BYTES;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) length--; //don't split a multi-byte character
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private static void checkHeader(ByteBuffer header, Path path) throws IOException {
+        if (header.getInt(0) != MAGIC) {
+            throw new IOException(path + " is not a run history file");
+        }
+        short version = header.getShort(4);
+        if (version > FORMAT_VERSION || header.getShort(6) != RECORD_SIZE) {
+            throw new IOException(path + " has unsupported format version " + version);
+        }
+    }
+
+    private static boolean isValid(CRC32 check, ByteBuffer buffer, int offset) {
+        check.reset();
+        buffer.limit(offset + CRC_OFFSET).position(offset);
+        check.update(buffer); //consumes [offset, offset + CRC_OFFSET)
+        buffer.clear();
+        return (int) check.getValue() == buffer.getInt(offset + CRC_OFFSET);
+    }
+
+    //----------------------------------------
+    //reading
+
+    //view of one record inside the current read window. reused for every record: read it inside the callback only
+    public static final class Cursor {
+        private ByteBuffer window;
+        private int offset;
+
+        public long startMillis() {
+            return window.getLong(offset);
+        }
+
+        public long durationNanos() {
+            return window.getLong(offset + 8);
+        }
+
+        public long clicks() {
+            return window.getLong(offset + 16);
+        }
+
+        public double achievedCps() {
+            return window.getDouble(offset + 24);
+        }
+
+        public int targetCps() {
+            return window.getInt(offset + 32);
+        }
+
+        public StopReason reason() {
+            int ordinal = window.get(offset + 36);
+            return ordinal >= 0 && ordinal < StopReason.values().length ? StopReason.values()[ordinal] : StopReason.STOPPED;
+        }
+
+        public String profile() {
+            byte[] bytes = new byte[profileLength()];
+            window.get(offset + PROFILE_OFFSET, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public Run toRun() {
+            return new Run(startMillis(), durationNanos(), profile(), targetCps(), achievedCps(), clicks(), reason());
+        }
+
+        private int profileLength() {
+            return Math.min(window.get(offset + 37) & 0xFF, PROFILE_BYTES);
+        }
+
+        //compare the stored profile without decoding it
+        private boolean profileEquals(byte[] bytes) {
+            int length = profileLength();
+            if (length != bytes.length) return false;
+            for (int i = 0; i < length; i++) {
+                if (window.get(offset + PROFILE_OFFSET + i) != bytes[i]) return false;
+            }
+            return true;
+        }
+
+        private byte[] profileBytes() {
+            byte[] bytes = new byte[profileLength()];
+            window.get(offset + PROFILE_OFFSET, bytes);
+            return bytes;
+        }
+    }
+
+    //visit every complete record in file order. only one read window is mapped at a time and nothing is allocated
+    //per record, so memory stays flat for any number of runs. records the writer hasn't counted yet are not visited
+    public static void scan(Path path, Consumer<Cursor> visitor) throws IOException {
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (in.size() < HEADER_SIZE) return;
+            ByteBuffer header = in.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            checkHeader(header, path);
+            long count = Math.min(header.getLong(8), (in.size() - HEADER_SIZE) / RECORD_SIZE);
+
+            Cursor cursor = new Cursor();
+            CRC32 check = new CRC32();
+            long recordsPerWindow = READ_WINDOW / RECORD_SIZE;
+            for (long first = 0; first < count; first += recordsPerWindow) {
+                int records = (int) Math.min(recordsPerWindow, count - first);
+                cursor.window = in.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE,
+                        (long) records * RECORD_SIZE);
+                for (int i = 0; i < records; i++) {
+                    cursor.offset = i * RECORD_SIZE;
+                    if (!isValid(check, cursor.window, cursor.offset)) continue; //torn write
+                    visitor.accept(cursor);
+                }
+            }
+        }
+    }
+
+    //totals per local calendar day of the run start
+    public static SortedMap<LocalDate, Totals> totalsByDay(Path path, ZoneId zone) throws IOException {
+        TreeMap<LocalDate, Totals> days = new TreeMap<>();
+        //runs arrive in time order: resolve a date (zone rules, DST) only when a run leaves the current day
+        long[] dayRange = {Long.MAX_VALUE, Long.MIN_VALUE};
+        Totals[] current = new Totals[1];
+        scan(path, run -> {
+            long start = run.startMillis();
+            if (start < dayRange[0] || start >= dayRange[1]) {
+                LocalDate day = Instant.ofEpochMilli(start).atZone(zone).toLocalDate();
+                dayRange[0] = day.atStartOfDay(zone).toInstant().toEpochMilli();
+                dayRange[1] = day.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+                if (dayRange[1] <= dayRange[0]) dayRange[1] = dayRange[0] + MILLIS_PER_DAY;
+                current[0] = days.computeIfAbsent(day, _ -> new Totals());
+            }
+            current[0].add(run.clicks(), run.durationNanos());
+        });
+        return days;
+    }
+
+    //totals per profile (template name)
+    public static SortedMap<String, Totals> totalsByProfile(Path path) throws IOException {
+        Map<String, Totals> profiles = new HashMap<>();
+        //consecutive runs mostly share a profile: compare bytes and skip decoding the name
+        byte[][] lastProfile = {null};
+        Totals[] current = new Totals[1];
+        scan(path, run -> {
+            if (lastProfile[0] == null || !run.profileEquals(lastProfile[0])) {
+                lastProfile[0] = run.profileBytes();
+                current[0] = profiles.computeIfAbsent(new String(lastProfile[0], StandardCharsets.UTF_8), _ -> new Totals());
+            }
+            current[0].add(run.clicks(), run.durationNanos());
+        });
+        return new TreeMap<>(profiles);
+    }
+}
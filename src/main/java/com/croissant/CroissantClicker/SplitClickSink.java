@@ -0,0 +1,81 @@
+package com.croissant.CroissantClicker;
+
+import java.awt.*;
+
+//button presses go to one backend, cursor moves and keys to another that is only created when first needed.
+//for backends that can only click (uinput registers a button-only device): positioned jobs and macro replay still
+//move the cursor and type through Robot, while plain clicking never pays for Robot's setup
+public class SplitClickSink implements ClickSink {
+
+    //constructor of the second backend, e.g. RobotClickSink::new
+    public interface Factory {
+        ClickSink create() throws AWTException;
+    }
+
+    private final ClickSink buttons;
+    private final Factory pointerFactory;
+    private volatile ClickSink pointer;
+    private boolean pointerFailed = false; //guarded by this: reported once, then moves/keys are dropped
+
+    public SplitClickSink(ClickSink buttons, Factory pointerFactory) {
+        this.buttons = buttons;
+        this.pointerFactory = pointerFactory;
+    }
+
+    @Override
+    public void press(int mouseButton) {
+        buttons.press(mouseButton);
+    }
+
+    @Override
+    public void release(int mouseButton) {
+        buttons.release(mouseButton);
+    }
+
+    @Override
+    public void moveTo(int x, int y) {
+        ClickSink sink = pointer();
+        if (sink != null) sink.moveTo(x, y);
+    }
+
+    @Override
+    public void keyPress(int keyCode) {
+        ClickSink sink = pointer();
+        if (sink != null) sink.keyPress(keyCode);
+    }
+
+    @Override
+    public void keyRelease(int keyCode) {
+        ClickSink sink = pointer();
+        if (sink != null) sink.keyRelease(keyCode);
+    }
+
+    private ClickSink pointer() {
+        ClickSink sink = pointer;
+        if (sink != null) return sink;
+        synchronized (this) {
+            if (pointer == null && !pointerFailed) {
+                try {
+                    pointer = pointerFactory.create();
+                } catch (AWTException | HeadlessException e) {
+                    System.err.println("No output for cursor moves and keys next to " + buttons.getName()
+                            + ", dropping them: " + e.getMessage());
+                    pointerFailed = true;
+                }
+            }
+            return pointer;
+        }
+    }
+
+    @Override
+    public String getName() {
+        return buttons.getName();
+    }
+
+    @Override
+    public void close() {
+        buttons.close();
+        ClickSink sink = pointer;
+        if (sink != null) sink.close();
+    }
+}
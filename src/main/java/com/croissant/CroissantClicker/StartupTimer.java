@@ -0,0 +1,60 @@
+package com.croissant.CroissantClicker;
+
+import java.time.Instant;
+
+//startup milestones relative to process launch, to track launch -> first frame -> first possible click.
+//  -Dcroissant.startup.report=true  print the milestones once the app is ready to click
+//  -Dcroissant.startup.exit=true    exit right after that (timing runs, AppCDS training run)
+public class StartupTimer {
+
+    public static final String REPORT_PROPERTY = "croissant.startup.report";
+    public static final String EXIT_PROPERTY = "croissant.startup.exit";
+
+    //nanoTime has no defined origin, so anchor it to the process start instant once
+    private static final long launchNanos = System.nanoTime() - ProcessHandle.current().info().startInstant()
+            .map(start -> (Instant.now().toEpochMilli() - start.toEpochMilli()) * 1_000_000L)
+            .orElse(0L);
+
+    private static volatile long mainMillis = -1;
+    private static volatile long firstFrameMillis = -1;
+    private static volatile long readyMillis = -1;
+    private static boolean reported = false;
+
+    private static long sinceLaunch() {
+        return (System.nanoTime() - launchNanos) / 1_000_000L;
+    }
+
+    //JVM up, main() entered
+    public static void markMain() {
+        mainMillis = sinceLaunch();
+    }
+
+    //window shown
+    public static void markFirstFrame() {
+        firstFrameMillis = sinceLaunch();
+        reportIfDone();
+    }
+
+    //click output and hotkey hook initialized: the user can start clicking
+    public static void markReady() {
+        readyMillis = sinceLaunch();
+        reportIfDone();
+    }
+
+    public static String summary() {
+        return "Startup: main " + mainMillis + "ms, first frame " + firstFrameMillis
+                + "ms, ready to click " + readyMillis + "ms (since launch)";
+    }
+
+    private static synchronized void reportIfDone() {
+        if (firstFrameMillis < 0 || readyMillis < 0 || reported) return;
+        reported = true;
+
+        if (Boolean.getBoolean(REPORT_PROPERTY) || Boolean.getBoolean(EXIT_PROPERTY)) {
+            System.out.println(summary());
+        }
+        if (Boolean.getBoolean(EXIT_PROPERTY)) {
+            System.exit(0);
+        }
+    }
+}
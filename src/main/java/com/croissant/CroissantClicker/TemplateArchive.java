@@ -0,0 +1,290 @@
+package com.croissant.CroissantClicker;
+
+import java.awt.event.InputEvent;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+import java.util.function.IntConsumer;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+//bulk export/import of the whole template library as one zip: an entry per template, config.<name>.properties in
+//the same format as the properties backend, so an archive can also be unpacked into a save directory by hand.
+//both directions stream a single template at a time through one reused buffer, whatever the library size (the
+//zip writer only keeps a small central directory record per entry). meant to run off the EDT: progress is
+//reported as a percentage and an interrupt (SwingWorker.cancel) stops the transfer between entries.
+public class TemplateArchive {
+
+    public static final String FILE_EXTENSION = "zip";
+    private static final String ENTRY_PREFIX = "config.";
+    private static final String ENTRY_SUFFIX = ".properties";
+    //templates are a few hundred bytes; anything bigger is not one (and caps what a zip bomb entry can inflate to)
+    private static final int MAX_ENTRY_BYTES = 64 * 1024;
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //what to do with an imported template whose name is already taken
+    public enum ConflictPolicy {
+        SKIP("Skip"), //keep the existing template
+        OVERWRITE("Overwrite"),
+        RENAME("Keep both"); //import as "name (2)", "name (3)", ...
+
+        private final String label;
+
+        ConflictPolicy(String label) {
+            this.label = label;
+        }
+
+        public static ConflictPolicy fromName(String name, ConflictPolicy defaultValue) {
+            if (name == null) return defaultValue;
+            for (ConflictPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(name) || policy.label.equalsIgnoreCase(name)) return policy;
+            }
+            return defaultValue;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    public record ImportResult(int imported, int renamed, int skipped, int invalid) {
+        @Override
+        public String toString() {
+            return imported + " imported (" + renamed + " renamed), " + skipped + " skipped, " + invalid + " invalid";
+        }
+    }
+
+    private TemplateArchive() {
+    }
+
+    //write every saved template to archive (replaced atomically once complete); returns the number exported
+    public static int exportTo(Path archive, IntConsumer progress) throws IOException {
+        ClickerEvents.Persistence event = SaveDataManager.beginEvent("export", archive.getFileName().toString());
+        List<String> names = SaveDataManager.getConfigTemplateNames();
+        Path tempPath = archive.resolveSibling(archive.getFileName() + ".tmp");
+        ClickerConfig template = new ClickerConfig();
+        int exported = 0;
+        int lastPercent = -1;
+        String previous = null;
+
+        try {
+            try (ZipOutputStream output = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(tempPath), BUFFER_SIZE))) {
+                //entries are tiny and mostly alike: compression ratio barely depends on the level, speed does
+                output.setLevel(Deflater.BEST_SPEED);
+                for (String name : names) {
+                    checkInterrupted();
+                    //a name carried by two files (foreign file with the same configName) is listed twice
+                    if (name.equals(previous)) continue;
+                    previous = name;
+
+                    if (SaveDataManager.read(template, name) < 0) continue; //deleted meanwhile
+                    output.putNextEntry(new ZipEntry(ENTRY_PREFIX + name + ENTRY_SUFFIX));
+                    SaveDataManager.toProperties(template, name).store(output, null);
+                    output.closeEntry();
+                    exported++;
+
+                    int percent = (int) (100L * exported / names.size());
+                    if (percent != lastPercent) {
+                        lastPercent = percent;
+                        progress.accept(percent);
+                    }
+                }
+            }
+            SaveDataManager.moveAtomically(tempPath, archive);
+        } finally {
+            Files.deleteIfExists(tempPath); //failed or cancelled
+            event.templates = exported;
+            if (event.isEnabled() && Files.exists(archive)) event.bytes = Files.size(archive);
+            event.commit();
+        }
+        progress.accept(100);
+        return exported;
+    }
+
+    //add the templates of archive to the library. entries that are not valid templates are skipped and counted;
+    //a cancelled import keeps the templates imported so far
+    public static ImportResult importFrom(Path archive, ConflictPolicy policy, IntConsumer progress) throws IOException {
+        ClickerEvents.Persistence event = SaveDataManager.beginEvent("import", archive.getFileName().toString());
+        long archiveSize = Math.max(1, Files.size(archive));
+        ClickerConfig template = new ClickerConfig();
+        byte[] buffer = new byte[MAX_ENTRY_BYTES + 1];
+        int imported = 0, renamed = 0, skipped = 0, invalid = 0;
+        int lastPercent = -1;
+
+        //progress follows the compressed bytes consumed, the entry count isn't known up front
+        try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(archive), BUFFER_SIZE));
+             ZipInputStream input = new ZipInputStream(counter)) {
+            ZipEntry entry;
+            while ((entry = input.getNextEntry()) != null) {
+                checkInterrupted();
+                if (entry.isDirectory()) continue;
+
+                String name;
+                try {
+                    int length = input.readNBytes(buffer, 0, buffer.length);
+                    if (length > MAX_ENTRY_BYTES) throw new IllegalArgumentException("larger than " + MAX_ENTRY_BYTES + " bytes");
+                    Properties configProps = new Properties();
+                    configProps.load(new ByteArrayInputStream(buffer, 0, length));
+                    name = validate(configProps, entry.getName());
+                    template.setDefaultConfig();
+                    SaveDataManager.applyProperties(configProps, template);
+                } catch (IllegalArgumentException | IOException e) { //malformed unicode escapes, truncated entry
+                    System.err.println("Skipping archive entry " + entry.getName() + ": " + e.getMessage());
+                    invalid++;
+                    continue;
+                }
+
+                if (SaveDataManager.exists(name)) {
+                    switch (policy) {
+                        case SKIP -> {
+                            skipped++;
+                            continue;
+                        }
+                        case RENAME -> {
+                            name = freeName(name);
+                            renamed++;
+                        }
+                        case OVERWRITE -> { }
+                    }
+                }
+                SaveDataManager.write(template, name);
+                imported++;
+
+                int percent = (int) Math.min(99, 100 * counter.getCount() / archiveSize);
+                if (percent != lastPercent) {
+                    lastPercent = percent;
+                    progress.accept(percent);
+                }
+            }
+        } finally {
+            event.templates = imported;
+            event.bytes = archiveSize;
+            event.commit();
+        }
+        progress.accept(100);
+        return new ImportResult(imported, renamed, skipped, invalid);
+    }
+
+    //template name of a parsed entry, after checking every value is in range; throws IllegalArgumentException
+    private static String validate(Properties configProps, String entryName) {
+        String name = configProps.getProperty("configName");
+        if (name == null) {
+            //hand-made archive: take the name from the entry, config.<name>.properties or <name>.properties
+            String fileName = entryName.substring(entryName.lastIndexOf('/') + 1);
+            if (!fileName.endsWith(ENTRY_SUFFIX)) throw new IllegalArgumentException("not a .properties template");
+            name = fileName.substring(fileName.startsWith(ENTRY_PREFIX) ? ENTRY_PREFIX.length() : 0,
+                    fileName.length() - ENTRY_SUFFIX.length());
+        }
+        if (!isValidName(name)) throw new IllegalArgumentException("unusable template name \"" + name + "\"");
+
+        checkInt(configProps, "cps", ClickerConfig.CPS_MIN, ClickerConfig.CPS_MAX);
+        checkInt(configProps, "clickLimit", ClickerConfig.CLICK_LIMIT_MIN, ClickerConfig.CLICK_LIMIT_MAX);
+        checkInt(configProps, "timingJitter", ClickerConfig.JITTER_MIN, ClickerConfig.JITTER_MAX);
+        checkInt(configProps, "holdMillis", ClickerConfig.HOLD_MILLIS_MIN, ClickerConfig.HOLD_MILLIS_MAX);
+        checkInt(configProps, "holdJitter", ClickerConfig.JITTER_MIN, ClickerConfig.JITTER_MAX);
+        checkInt(configProps, "burstCount", ClickerConfig.BURST_COUNT_MIN, ClickerConfig.BURST_COUNT_MAX);
+        checkInt(configProps, "burstSpacingMicros", ClickerConfig.BURST_SPACING_MICROS_MIN, ClickerConfig.BURST_SPACING_MICROS_MAX);
+        checkInt(configProps, "burstCooldownMillis", ClickerConfig.BURST_COOLDOWN_MILLIS_MIN, ClickerConfig.BURST_COOLDOWN_MILLIS_MAX);
+
+        String mouseButton = configProps.getProperty("mouseButton");
+        if (mouseButton != null) {
+            int value = parseInt("mouseButton", mouseButton);
+            if (value != InputEvent.BUTTON1_DOWN_MASK && value != InputEvent.BUTTON2_DOWN_MASK
+                    && value != InputEvent.BUTTON3_DOWN_MASK) {
+                throw new IllegalArgumentException("mouseButton must be an InputEvent BUTTON1-3 mask");
+            }
+        }
+        String clickLimitMode = configProps.getProperty("clickLimitMode");
+        if (clickLimitMode != null && !"true".equalsIgnoreCase(clickLimitMode) && !"false".equalsIgnoreCase(clickLimitMode)) {
+            throw new IllegalArgumentException("clickLimitMode must be true or false");
+        }
+        String timingMode = configProps.getProperty("timingMode");
+        if (timingMode != null && TimingMode.fromName(timingMode, null) == null) {
+            throw new IllegalArgumentException("unknown timingMode " + timingMode);
+        }
+        String theme = configProps.getProperty("theme");
+        if (theme != null && (theme.isBlank() || theme.length() > MAX_NAME_LENGTH)) {
+            throw new IllegalArgumentException("unusable theme \"" + theme + "\"");
+        }
+        return name;
+    }
+
+    private static void checkInt(Properties configProps, String key, int min, int max) {
+        String value = configProps.getProperty(key);
+        if (value == null) return; //missing: the default applies
+        int parsed = parseInt(key, value);
+        if (parsed < min || parsed > max) {
+            throw new IllegalArgumentException(key + " " + parsed + " not in " + min + ".." + max);
+        }
+    }
+
+    private static int parseInt(String key, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(key + " is not a number: " + value);
+        }
+    }
+
+    //names end up in file names (config.<name>.properties): no path separators, reserved or control characters
+    static boolean isValidName(String name) {
+        if (name.isBlank() || name.length() > MAX_NAME_LENGTH || name.startsWith(".") || name.endsWith(".")) return false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isISOControl(c) || "/\\:*?\"<>|".indexOf(c) >= 0) return false;
+        }
+        return true;
+    }
+
+    private static String freeName(String name) {
+        for (int i = 2; ; i++) {
+            String candidate = name + " (" + i + ")";
+            if (!SaveDataManager.exists(candidate)) return candidate;
+        }
+    }
+
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("cancelled");
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream input) {
+            super(input);
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
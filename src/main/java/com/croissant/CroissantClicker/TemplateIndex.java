@@ -0,0 +1,164 @@
+package com.croissant.CroissantClicker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+
+//in-memory index of saved config templates, built once from the save directory and then kept current
+//by local saves/deletes plus a WatchService for changes made outside the app.
+//listing returns a cached sorted snapshot (O(1) until the next change), lookups are O(log n).
+public class TemplateIndex {
+
+    private static final String FILE_PREFIX = "config.";
+    private static final String FILE_SUFFIX = ".properties";
+
+    private final Path saveDir;
+    //guarded by this: file name -> template name, and sorted template name -> number of files carrying it
+    private final Map<String, String> namesByFile = new HashMap<>();
+    private final TreeMap<String, Integer> sortedNames = new TreeMap<>();
+    //rebuilt lazily after a change, null = stale
+    private volatile List<String> snapshot;
+    private Thread watchThread;
+
+    public TemplateIndex(Path saveDir) {
+        this.saveDir = saveDir;
+    }
+
+    //full directory scan: names come from the file name, only foreign files are parsed for configName
+    public synchronized void rebuild() {
+        namesByFile.clear();
+        sortedNames.clear();
+        snapshot = null;
+
+        try (Stream<Path> files = Files.list(saveDir)) {
+            files.forEach(path -> {
+                String fileName = path.getFileName().toString();
+                if (fileName.endsWith(FILE_SUFFIX)) {
+                    put(fileName, templateNameOf(path));
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error indexing config templates: " + e.getMessage());
+        }
+    }
+
+    public List<String> list() {
+        List<String> names = snapshot;
+        if (names == null) {
+            synchronized (this) {
+                names = snapshot;
+                if (names == null) {
+                    ArrayList<String> rebuilt = new ArrayList<>(namesByFile.size());
+                    sortedNames.forEach((name, count) -> {
+                        for (int i = 0; i < count; i++) rebuilt.add(name);
+                    });
+                    names = Collections.unmodifiableList(rebuilt);
+                    snapshot = names;
+                }
+            }
+        }
+        return names;
+    }
+
+    public synchronized boolean contains(String templateName) {
+        return sortedNames.containsKey(templateName);
+    }
+
+    public int size() {
+        return list().size();
+    }
+
+    //local write hooks (SaveDataManager), also used by the watcher
+    public synchronized void onSaved(String fileName, String templateName) {
+        put(fileName, templateName);
+    }
+
+    public synchronized void onDeleted(String fileName) {
+        String old = namesByFile.remove(fileName);
+        if (old != null) {
+            decrement(old);
+            snapshot = null;
+        }
+    }
+
+    private void put(String fileName, String templateName) {
+        String old = namesByFile.put(fileName, templateName);
+        if (templateName.equals(old)) return; //re-save of an existing template: listing unchanged
+
+        if (old != null) decrement(old);
+        sortedNames.merge(templateName, 1, Integer::sum);
+        snapshot = null;
+    }
+
+    private void decrement(String templateName) {
+        sortedNames.computeIfPresent(templateName, (_, count) -> count > 1 ? count - 1 : null);
+    }
+
+    //watch the save directory for changes made by other processes/instances
+    public synchronized void startWatching() {
+        if (watchThread != null) return;
+
+        WatchService watchService;
+        try {
+            watchService = saveDir.getFileSystem().newWatchService();
+            saveDir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("Template directory watch unavailable: " + e.getMessage());
+            return;
+        }
+
+        watchThread = new Thread(() -> watchLoop(watchService), "template-index-watch");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    private void watchLoop(WatchService watchService) {
+        try (watchService) {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        rebuild(); //events were dropped, resync from disk
+                        continue;
+                    }
+                    String fileName = event.context().toString();
+                    if (!fileName.endsWith(FILE_SUFFIX)) continue; //temp files etc.
+
+                    Path path = saveDir.resolve(fileName);
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE || !Files.exists(path)) {
+                        onDeleted(fileName);
+                    } else {
+                        onSaved(fileName, templateNameOf(path));
+                    }
+                }
+                if (!key.reset()) {
+                    System.err.println("Template directory no longer accessible, stopped watching");
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("Error watching template directory: " + e.getMessage());
+        }
+    }
+
+    //config.<name>.properties carries its name; anything else falls back to the configName property inside
+    static String templateNameOf(Path path) {
+        String fileName = path.getFileName().toString();
+        if (fileName.startsWith(FILE_PREFIX) && fileName.length() > FILE_PREFIX.length() + FILE_SUFFIX.length()) {
+            return fileName.substring(FILE_PREFIX.length(), fileName.length() - FILE_SUFFIX.length());
+        }
+
+        Properties configProps = new Properties();
+        try (InputStream input = Files.newInputStream(path)) {
+            configProps.load(input);
+        } catch (IOException e) {
+            System.err.println("Failed to load configFile " + fileName + ": " + e.getMessage());
+        }
+        return configProps.getProperty("configName", "NAME_MISSING");
+    }
+}
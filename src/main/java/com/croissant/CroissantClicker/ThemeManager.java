@@ -3,28 +3,220 @@ package com.croissant.CroissantClicker;
 import javax.swing.*;
 import com.formdev.flatlaf.FlatDarkLaf;
 import com.formdev.flatlaf.FlatLightLaf;
+import com.formdev.flatlaf.FlatPropertiesLaf;
 
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+//look and feel switching. every theme gets one LookAndFeel instance that keeps its UIDefaults table, so switching
+//back to a theme reinstalls a table that is already built (and already resolved) instead of reparsing FlatLaf's
+//properties files; prewarm() builds them in the background at startup. a switch restyles only what is showing:
+//hidden subtrees (closed drawer, other drawer cards) are restyled when they are next shown.
+//custom themes: FlatLaf properties files in <save dir>/themes, named after the file (Ocean.properties -> "Ocean"),
+//parsed once at startup, e.g.
+//    @baseTheme = dark
+//    @accentColor = #e0a030
 public class ThemeManager {
 
+    private static final String THEME_FILE_SUFFIX = ".properties";
+    //client property: the look and feel a component tree was last styled with
+    private static final String STYLED_WITH_KEY = "croissant.styledWith";
+    private static final String RESTYLE_LISTENER_KEY = "croissant.restyleListener";
+
+    //theme name -> look and feel, created on first use (or by prewarm)
+    private static final Map<String, LookAndFeel> lookAndFeels = new ConcurrentHashMap<>();
+    //custom theme name -> parsed theme file
+    private static volatile Map<String, FlatPropertiesLaf> customThemes;
+
+    //built-in and custom theme names, in selector order. reads the theme directory once
+    public static List<String> getThemeNames() {
+        List<String> names = new ArrayList<>(List.of("Dark", "Light"));
+        names.addAll(getCustomThemes().keySet());
+        return names;
+    }
+
+    //create every theme and build its defaults table; run off the EDT at startup
+    public static void prewarm() {
+        for (String themeName : getThemeNames()) {
+            try {
+                getLookAndFeel(themeName).getDefaults();
+            } catch (RuntimeException e) {
+                System.err.println("Error preparing theme " + themeName + ": " + e.getMessage());
+            }
+        }
+    }
+
     public static void setTheme(String themeName, JFrame frame){
+        LookAndFeel lookAndFeel = getLookAndFeel(themeName);
+        if (UIManager.getLookAndFeel() == lookAndFeel) return; //same theme again (startup, template with the same theme)
+
+        ClickerEvents.ThemeSwitch event = new ClickerEvents.ThemeSwitch();
+        event.begin();
         try{
-            switch (themeName){
-                case "Dark":
-                    FlatDarkLaf.setup();
-                    break;
-                case "Light":
-                    FlatLightLaf.setup();
-                    break;
-                default:
-                    FlatDarkLaf.setup();
-            }
+            UIManager.setLookAndFeel(lookAndFeel);
 
-            SwingUtilities.updateComponentTreeUI(frame);
+            //the root pane itself, then only the showing part of the tree
+            JRootPane rootPane = frame.getRootPane();
+            rootPane.updateUI();
+            rootPane.putClientProperty(STYLED_WITH_KEY, lookAndFeel);
+            event.restyled = 1 + restyle(rootPane.getContentPane(), lookAndFeel);
+            if (frame.getJMenuBar() != null) event.restyled += restyle(frame.getJMenuBar(), lookAndFeel);
+            event.restyled += restyle(rootPane.getGlassPane(), lookAndFeel);
+
+            rootPane.revalidate();
             frame.repaint();
 
         } catch (Exception e){
             System.err.println("Error switching theme");
             e.printStackTrace();
+        } finally {
+            event.theme = themeName;
+            event.commit();
+        }
+    }
+
+    //apply the theme before any component exists (startup): nothing to restyle
+    public static void install(String themeName) {
+        try {
+            UIManager.setLookAndFeel(getLookAndFeel(themeName));
+        } catch (UnsupportedLookAndFeelException e) {
+            System.err.println("Error installing theme " + themeName + ": " + e.getMessage());
+        }
+    }
+
+    private static LookAndFeel getLookAndFeel(String themeName) {
+        //unknown (e.g. a template from another machine): fall back to the default theme
+        String name = "Light".equals(themeName) || getCustomThemes().containsKey(themeName)
+                ? themeName : ClickerConfig.THEME_DEFAULT;
+        return lookAndFeels.computeIfAbsent(name, _ -> switch (name) {
+            case "Dark" -> new CachedDarkLaf();
+            case "Light" -> new CachedLightLaf();
+            default -> getCustomThemes().get(name);
+        });
+    }
+
+    //updateUI over a tree, like SwingUtilities.updateComponentTreeUI, except that hidden subtrees are left for when
+    //they are shown. returns the number of components restyled
+    private static int restyle(Component component, LookAndFeel lookAndFeel) {
+        if (component instanceof JComponent jComponent) {
+            if (jComponent.getClientProperty(STYLED_WITH_KEY) == lookAndFeel) return 0;
+            if (!jComponent.isVisible()) {
+                restyleWhenShown(jComponent);
+                return 0;
+            }
+            jComponent.putClientProperty(STYLED_WITH_KEY, lookAndFeel);
+            jComponent.updateUI();
+            JPopupMenu popupMenu = jComponent.getComponentPopupMenu();
+            if (popupMenu != null) SwingUtilities.updateComponentTreeUI(popupMenu);
+        }
+
+        int restyled = 1;
+        Component[] children = component instanceof JMenu menu ? menu.getMenuComponents()
+                : component instanceof Container container ? container.getComponents() : null;
+        if (children != null) {
+            for (Component child : children) {
+                restyled += restyle(child, lookAndFeel);
+            }
+        }
+        return restyled;
+    }
+
+    private static void restyleWhenShown(JComponent component) {
+        if (component.getClientProperty(RESTYLE_LISTENER_KEY) != null) return;
+        component.putClientProperty(RESTYLE_LISTENER_KEY, Boolean.TRUE);
+        component.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) == 0 || !component.isShowing()) return;
+            LookAndFeel current = UIManager.getLookAndFeel();
+            if (component.getClientProperty(STYLED_WITH_KEY) != current) {
+                restyle(component, current);
+                component.revalidate();
+            }
+        });
+    }
+
+    private static Map<String, FlatPropertiesLaf> getCustomThemes() {
+        Map<String, FlatPropertiesLaf> themes = customThemes;
+        if (themes == null) {
+            synchronized (ThemeManager.class) {
+                themes = customThemes;
+                if (themes == null) {
+                    themes = loadCustomThemes();
+                    customThemes = themes;
+                }
+            }
+        }
+        return themes;
+    }
+
+    private static Map<String, FlatPropertiesLaf> loadCustomThemes() {
+        Map<String, FlatPropertiesLaf> themes = new TreeMap<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(SaveDataManager.getThemeDirectory(), "*" + THEME_FILE_SUFFIX)) {
+            for (Path path : files) {
+                String fileName = path.getFileName().toString();
+                String name = fileName.substring(0, fileName.length() - THEME_FILE_SUFFIX.length());
+                if (name.isEmpty() || "Dark".equals(name) || "Light".equals(name)) continue; //can't shadow a built-in
+                try (InputStream input = Files.newInputStream(path)) {
+                    themes.put(name, new CachedPropertiesLaf(name, input));
+                } catch (IOException | RuntimeException e) { //bad color values etc. surface as runtime exceptions
+                    System.err.println("Skipping theme file " + fileName + ": " + e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error loading custom themes: " + e.getMessage());
+        }
+        return Collections.unmodifiableMap(themes);
+    }
+
+    //FlatLaf builds a new defaults table on every install; these keep the first one
+    private static final class DefaultsCache {
+        private UIDefaults defaults;
+
+        synchronized UIDefaults get(Supplier<UIDefaults> builder) {
+            if (defaults == null) defaults = builder.get();
+            return defaults;
+        }
+    }
+
+    private static final class CachedDarkLaf extends FlatDarkLaf {
+        private final DefaultsCache cache = new DefaultsCache();
+
+        @Override
+        public UIDefaults getDefaults() {
+            return cache.get(super::getDefaults);
+        }
+    }
+
+    private static final class CachedLightLaf extends FlatLightLaf {
+        private final DefaultsCache cache = new DefaultsCache();
+
+        @Override
+        public UIDefaults getDefaults() {
+            return cache.get(super::getDefaults);
+        }
+    }
+
+    private static final class CachedPropertiesLaf extends FlatPropertiesLaf {
+        private final DefaultsCache cache = new DefaultsCache();
+
+        CachedPropertiesLaf(String name, InputStream input) throws IOException {
+            super(name, input);
+        }
+
+        @Override
+        public UIDefaults getDefaults() {
+            return cache.get(super::getDefaults);
         }
     }
 }
@@ -0,0 +1,185 @@
+package com.croissant.CroissantClicker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.LockSupport;
+
+//precomputes randomized click intervals and hold times on a background thread.
+//samples are stored as multipliers of the mean (parts per million) in primitive rings, so the click thread only
+//does a ring read and a multiply: no RNG, no allocation, and cps/hold changes apply instantly.
+//each sample is tagged with the generation of the settings it was drawn for; a settings change bumps the
+//generation and the consumer discards stale samples, so a new distribution applies from the next click.
+public class TimingGenerator {
+
+    public static final String EMPIRICAL_FILE_NAME = "timing.empirical";
+
+    private static final int RING_CAPACITY = 4096;
+    private static final int BLOCK_SIZE = 256;
+    private static final long PPM = 1_000_000L;
+    private static final int GENERATION_BITS = 16;
+    private static final long GENERATION_MASK = (1L << GENERATION_BITS) - 1;
+    private static final long EMPTY = -1;
+    //keep multipliers in a sane range: never (almost) zero gaps, never minute long stalls.
+    //gaussian/uniform draws are truncated symmetrically instead, to [MIN_FACTOR, 2 - MIN_FACTOR]
+    private static final double MIN_FACTOR = 0.05;
+    private static final double MAX_FACTOR = 10.0;
+
+    private final IntervalRing intervals = new IntervalRing(RING_CAPACITY);
+    private final IntervalRing holds = new IntervalRing(RING_CAPACITY);
+
+    //settings, written by the consumer in configure(); generation is written last and read first
+    private volatile TimingMode mode = TimingMode.FIXED;
+    private volatile int jitter;
+    private volatile int holdJitter;
+    private volatile int generation;
+
+    private volatile long underruns; //samples the click thread needed but the producer had not made yet
+    private Thread producer;
+
+    //consumer side: cheap no-op unless the settings actually changed
+    public void configure(ClickerConfig.Snapshot settings) {
+        if (settings.timingMode() == mode && settings.timingJitter() == jitter && settings.holdJitter() == holdJitter) {
+            return;
+        }
+        mode = settings.timingMode();
+        jitter = settings.timingJitter();
+        holdJitter = settings.holdJitter();
+        generation = (generation + 1) & (int) GENERATION_MASK;
+
+        if (producer == null) {
+            producer = new Thread(this::produce, "timing-generator");
+            producer.setDaemon(true);
+            producer.start();
+        }
+        LockSupport.unpark(producer);
+    }
+
+    //next gap in nanos for the given mean (1/cps)
+    public long nextIntervalNanos(long meanNanos) {
+        if (mode == TimingMode.FIXED) return meanNanos;
+        return scale(meanNanos, pollCurrent(intervals));
+    }
+
+    //next button hold time in nanos for the given mean
+    public long nextHoldNanos(long meanNanos) {
+        if (meanNanos <= 0) return 0;
+        if (holdJitter == 0) return meanNanos;
+        return scale(meanNanos, pollCurrent(holds));
+    }
+
+    public long getUnderruns() {
+        return underruns;
+    }
+
+    private long pollCurrent(IntervalRing ring) {
+        int current = generation;
+        long packed;
+        while ((packed = ring.poll(EMPTY)) != EMPTY) {
+            if ((packed & GENERATION_MASK) == current) break; //skip samples drawn for old settings
+        }
+        //wake the producer once a quarter of the ring has been used
+        if (ring.size() < ring.capacity() * 3 / 4 && producer != null) {
+            LockSupport.unpark(producer);
+        }
+        if (packed == EMPTY) underruns++;
+        return packed;
+    }
+
+    private static long scale(long meanNanos, long packed) {
+        if (packed == EMPTY) return meanNanos; //producer behind: fall back to the mean, never block
+        long factorPpm = packed >>> GENERATION_BITS;
+        return meanNanos / PPM * factorPpm + (meanNanos % PPM) * factorPpm / PPM;
+    }
+
+    private void produce() {
+        SplittableRandom random = new SplittableRandom();
+        double[] empirical = loadEmpiricalFactors();
+
+        while (true) {
+            int gen = generation;
+            TimingMode currentMode = mode;
+            double spread = jitter / 100.0;
+            double holdSpread = holdJitter / 100.0;
+
+            //top both rings up in blocks, restarting as soon as the settings change
+            while (gen == generation) {
+                int added = 0;
+                for (int i = 0; i < BLOCK_SIZE && currentMode != TimingMode.FIXED
+                        && intervals.offer(pack(sample(currentMode, spread, empirical, random), gen)); i++) {
+                    added++;
+                }
+                for (int i = 0; i < BLOCK_SIZE && holdSpread > 0
+                        && holds.offer(pack(symmetric(holdSpread, true, random), gen)); i++) {
+                    added++;
+                }
+                if (added == 0) break; //both full (or nothing to generate)
+            }
+            if (gen == generation) {
+                LockSupport.parkNanos(this, 50_000_000L); //woken early by the consumer or a settings change
+            }
+        }
+    }
+
+    private static double sample(TimingMode mode, double spread, double[] empirical, SplittableRandom random) {
+        return switch (mode) {
+            case GAUSSIAN -> symmetric(spread, true, random);
+            case UNIFORM -> symmetric(spread, false, random);
+            case POISSON -> -Math.log(1 - random.nextDouble()); //exponential gaps with mean 1
+            case EMPIRICAL -> empirical.length == 0 ? 1 : empirical[random.nextInt(empirical.length)];
+            case FIXED -> 1;
+        };
+    }
+
+    //draws outside the range are redrawn on both sides alike, so the mean stays exactly 1. clamping just the low
+    //side (as pack does) would move the cut-off mass up and stretch the mean interval at high jitter
+    private static double symmetric(double spread, boolean gaussian, SplittableRandom random) {
+        while (true) {
+            double factor = 1 + spread * (gaussian ? random.nextGaussian() : 2 * random.nextDouble() - 1);
+            if (factor >= MIN_FACTOR && factor <= 2 - MIN_FACTOR) return factor;
+        }
+    }
+
+    private static long pack(double factor, int gen) {
+        double clamped = Math.max(MIN_FACTOR, Math.min(MAX_FACTOR, factor));
+        return ((long) (clamped * PPM) << GENERATION_BITS) | (gen & GENERATION_MASK);
+    }
+
+    private static void normalize(double[] samples) {
+        double mean = 0;
+        for (double sample : samples) mean += sample / samples.length;
+        for (int i = 0; i < samples.length; i++) samples[i] /= mean;
+    }
+
+    //one interval in milliseconds per line; normalized to mean 1 so the requested cps still holds on average
+    private static double[] loadEmpiricalFactors() {
+        try {
+            Path file = SaveDataManager.getSaveDirectory().resolve(EMPIRICAL_FILE_NAME);
+            if (!Files.exists(file)) return new double[0];
+
+            double[] samples = Files.readAllLines(file).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                    .mapToDouble(Double::parseDouble)
+                    .filter(value -> value > 0)
+                    .toArray();
+            normalize(samples);
+            //pack clamps outliers into range, which moves the mean again: clamp here and renormalize until stable
+            for (int pass = 0; pass < 8; pass++) {
+                boolean clamped = false;
+                for (int i = 0; i < samples.length; i++) {
+                    double value = Math.max(MIN_FACTOR, Math.min(MAX_FACTOR, samples[i]));
+                    clamped |= value != samples[i];
+                    samples[i] = value;
+                }
+                if (!clamped) break;
+                normalize(samples);
+            }
+            return samples;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("Error loading empirical timing samples: " + e.getMessage());
+            return new double[0];
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.croissant.CroissantClicker;
+
+//how the gap between clicks is chosen. all modes keep the mean interval at 1/cps
+public enum TimingMode {
+    FIXED("Fixed"), //exact 1/cps spacing
+    GAUSSIAN("Gaussian"), //normal around 1/cps, std dev = jitter %
+    UNIFORM("Uniform"), //uniform within +/- jitter % of 1/cps
+    POISSON("Poisson"), //exponential gaps (random arrivals at the requested rate)
+    EMPIRICAL("Empirical"); //resampled from user supplied intervals (<save dir>/timing.empirical)
+
+    private final String label;
+
+    TimingMode(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public static TimingMode fromName(String name, TimingMode defaultValue) {
+        if (name == null) return defaultValue;
+        for (TimingMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name) || mode.label.equalsIgnoreCase(name)) return mode;
+        }
+        return defaultValue;
+    }
+
+    @Override
+    public String toString() {
+        return label;
+    }
+}
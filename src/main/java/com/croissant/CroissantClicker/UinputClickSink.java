@@ -0,0 +1,207 @@
+package com.croissant.CroissantClicker;
+
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+
+//Linux backend: creates a virtual mouse through /dev/uinput and writes input_event structs straight to the kernel.
+//bypasses the X server/compositor entirely (works under Wayland too). needs write access to /dev/uinput.
+//libc open/ioctl/write are called through the FFM API; each click is a single preallocated write() per press/release.
+//the sink is shared by the click thread and the burst thread, so writes are serialized on the sink. if the kernel
+//rejects a write (device gone, module unloaded) clicks fall back to java.awt.Robot for the rest of the session.
+//the device only has buttons: ClickSinks wraps it in a SplitClickSink so cursor moves and keys reach Robot.
+public class UinputClickSink implements ClickSink {
+
+    private static final String UINPUT_PATH = "/dev/uinput";
+
+    //<fcntl.h>
+    private static final int O_WRONLY = 0x1;
+    private static final int O_NONBLOCK = 0x800;
+    //<linux/uinput.h>
+    private static final long UI_DEV_CREATE = 0x5501;
+    private static final long UI_DEV_DESTROY = 0x5502;
+    private static final long UI_SET_EVBIT = 0x40045564;
+    private static final long UI_SET_KEYBIT = 0x40045565;
+    private static final long UI_SET_RELBIT = 0x40045566;
+    //<linux/input-event-codes.h>
+    private static final int EV_SYN = 0x00;
+    private static final int EV_KEY = 0x01;
+    private static final int EV_REL = 0x02;
+    private static final int SYN_REPORT = 0;
+    private static final int REL_X = 0x00;
+    private static final int REL_Y = 0x01;
+    private static final int BTN_LEFT = 0x110;
+    private static final int BTN_RIGHT = 0x111;
+    private static final int BTN_MIDDLE = 0x112;
+    private static final int BUS_USB = 0x03;
+
+    //struct input_event on 64-bit: struct timeval (16) + type (2) + code (2) + value (4)
+    private static final int INPUT_EVENT_SIZE = 24;
+    //struct uinput_user_dev: name[80] + input_id (8) + ff_effects_max (4) + 4 * abs[64] (1024)
+    private static final int UINPUT_USER_DEV_SIZE = 1116;
+
+    private static final MethodHandle OPEN;
+    private static final MethodHandle IOCTL;
+    private static final MethodHandle IOCTL_INT;
+    private static final MethodHandle WRITE;
+    private static final MethodHandle CLOSE;
+
+    static {
+        Linker linker = Linker.nativeLinker();
+        SymbolLookup libc = linker.defaultLookup();
+        OPEN = linker.downcallHandle(libc.find("open").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT));
+        IOCTL = linker.downcallHandle(libc.find("ioctl").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG));
+        IOCTL_INT = linker.downcallHandle(libc.find("ioctl").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT),
+                Linker.Option.firstVariadicArg(2));
+        WRITE = linker.downcallHandle(libc.find("write").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG));
+        CLOSE = linker.downcallHandle(libc.find("close").orElseThrow(),
+                FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT));
+    }
+
+    private final Arena arena = Arena.ofShared();
+    //button event + SYN_REPORT, rewritten in place for every press/release (no allocation on the click path).
+    //guarded by this
+    private final MemorySegment eventBuffer = arena.allocate(INPUT_EVENT_SIZE * 2L, 8);
+    private final int fd;
+    private ClickSink fallback; //guarded by this; set once a write failed
+    private boolean fallbackFailed = false; //no Robot either: clicks are dropped, reported once
+
+    public UinputClickSink() throws IOException {
+        if (!System.getProperty("os.name").toLowerCase().contains("linux") || ValueLayout.ADDRESS.byteSize() != 8) {
+            arena.close();
+            throw new IOException("uinput backend requires 64-bit Linux");
+        }
+
+        try {
+            fd = (int) OPEN.invokeExact(arena.allocateFrom(UINPUT_PATH), O_WRONLY | O_NONBLOCK);
+            if (fd < 0) {
+                throw new IOException("cannot open " + UINPUT_PATH + " (missing permission or uinput module)");
+            }
+            createDevice();
+        } catch (IOException e) {
+            arena.close();
+            throw e;
+        } catch (Throwable t) {
+            arena.close();
+            throw new IOException("uinput setup failed: " + t.getMessage(), t);
+        }
+
+        //syn event never changes
+        setEvent(INPUT_EVENT_SIZE, EV_SYN, SYN_REPORT, 0);
+    }
+
+    private void createDevice() throws Throwable {
+        //a device is only treated as a mouse if it also advertises relative axes
+        checkIoctl((int) IOCTL_INT.invokeExact(fd, UI_SET_EVBIT, EV_KEY));
+        checkIoctl((int) IOCTL_INT.invokeExact(fd, UI_SET_KEYBIT, BTN_LEFT));
+        checkIoctl((int) IOCTL_INT.invokeExact(fd, UI_SET_KEYBIT, BTN_RIGHT));
+        checkIoctl((int) IOCTL_INT.invokeExact(fd, UI_SET_KEYBIT, BTN_MIDDLE));
+        checkIoctl((int) IOCTL_INT.invokeExact(fd, UI_SET_EVBIT, EV_REL));
+        checkIoctl((int) IOCTL_INT.invokeExact(fd, UI_SET_RELBIT, REL_X));
+        checkIoctl((int) IOCTL_INT.invokeExact(fd, UI_SET_RELBIT, REL_Y));
+
+        MemorySegment dev = arena.allocate(UINPUT_USER_DEV_SIZE, 8); //zero filled
+        byte[] name = "CroissantClicker virtual mouse".getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+        MemorySegment.copy(name, 0, dev, ValueLayout.JAVA_BYTE, 0, name.length);
+        dev.set(ValueLayout.JAVA_SHORT_UNALIGNED, 80, (short) BUS_USB);
+        dev.set(ValueLayout.JAVA_SHORT_UNALIGNED, 82, (short) 0x1234); //vendor
+        dev.set(ValueLayout.JAVA_SHORT_UNALIGNED, 84, (short) 0x5678); //product
+        dev.set(ValueLayout.JAVA_SHORT_UNALIGNED, 86, (short) 1); //version
+
+        long written = (long) WRITE.invokeExact(fd, dev, (long) UINPUT_USER_DEV_SIZE);
+        if (written != UINPUT_USER_DEV_SIZE) {
+            throw new IOException("failed to write uinput device description");
+        }
+        checkIoctl((int) IOCTL.invokeExact(fd, UI_DEV_CREATE));
+    }
+
+    private static void checkIoctl(int result) throws IOException {
+        if (result < 0) {
+            throw new IOException("uinput ioctl failed");
+        }
+    }
+
+    @Override
+    public void press(int mouseButton) {
+        emit(mouseButton, 1);
+    }
+
+    @Override
+    public void release(int mouseButton) {
+        emit(mouseButton, 0);
+    }
+
+    private synchronized void emit(int mouseButton, int value) {
+        if (fallback == null && !fallbackFailed) {
+            //kernel fills in the timestamp when it is left zero
+            setEvent(0, EV_KEY, toButtonCode(mouseButton), value);
+            long written;
+            try {
+                written = (long) WRITE.invokeExact(fd, eventBuffer, (long) INPUT_EVENT_SIZE * 2);
+            } catch (Throwable t) {
+                written = -1;
+            }
+            if (written == INPUT_EVENT_SIZE * 2) return;
+            switchToFallback(written);
+        }
+
+        if (fallback != null) {
+            if (value == 1) fallback.press(mouseButton);
+            else fallback.release(mouseButton);
+        }
+    }
+
+    private void switchToFallback(long written) {
+        System.err.println("uinput write failed (returned " + written + " of " + INPUT_EVENT_SIZE * 2
+                + " bytes), falling back to robot");
+        try {
+            fallback = new RobotClickSink();
+        } catch (AWTException | HeadlessException e) {
+            System.err.println("robot fallback unavailable, clicks are dropped: " + e.getMessage());
+            fallbackFailed = true;
+        }
+    }
+
+    private void setEvent(long offset, int type, int code, int value) {
+        eventBuffer.set(ValueLayout.JAVA_LONG, offset, 0L); //tv_sec
+        eventBuffer.set(ValueLayout.JAVA_LONG, offset + 8, 0L); //tv_usec
+        eventBuffer.set(ValueLayout.JAVA_SHORT, offset + 16, (short) type);
+        eventBuffer.set(ValueLayout.JAVA_SHORT, offset + 18, (short) code);
+        eventBuffer.set(ValueLayout.JAVA_INT, offset + 20, value);
+    }
+
+    private static int toButtonCode(int mouseButton) {
+        if (mouseButton == InputEvent.BUTTON3_DOWN_MASK) return BTN_RIGHT;
+        if (mouseButton == InputEvent.BUTTON2_DOWN_MASK) return BTN_MIDDLE;
+        return BTN_LEFT;
+    }
+
+    @Override
+    public synchronized String getName() {
+        return fallback != null ? fallback.getName() : "uinput";
+    }
+
+    @Override
+    public synchronized void close() {
+        if (fallback != null) fallback.close();
+        try {
+            int ignored = (int) IOCTL.invokeExact(fd, UI_DEV_DESTROY);
+            ignored = (int) CLOSE.invokeExact(fd);
+        } catch (Throwable t) {
+            System.err.println("Error closing uinput device: " + t.getMessage());
+        } finally {
+            arena.close();
+        }
+    }
+}
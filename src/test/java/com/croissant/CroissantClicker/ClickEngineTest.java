@@ -0,0 +1,87 @@
+package com.croissant.CroissantClicker;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.event.InputEvent;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickEngineTest {
+
+    @Test
+    void headlessJobsRunToTheirLimits() {
+        int exitCode = HeadlessMain.run(new String[]{"--headless", "--sink", "counting",
+                "--job", "500x25", "--job", "200x10@5,5", "--duration", "10"});
+        assertEquals(0, exitCode);
+    }
+
+    @Test
+    void headlessRejectsMalformedJobs() {
+        assertEquals(2, HeadlessMain.run(new String[]{"--headless", "--sink", "counting", "--job", "500x"}));
+        assertEquals(2, HeadlessMain.run(new String[]{"--headless", "--sink", "counting", "--job", "10@5"}));
+        assertEquals(2, HeadlessMain.run(new String[]{"--headless", "--sink", "counting", "--job"}));
+    }
+
+    @Test
+    void jobsClickExactlyTheirLimit() {
+        CountingClickSink sink = new CountingClickSink();
+        ClickerConfig config = new ClickerConfig();
+        List<ClickJob> jobs = List.of(HeadlessMain.parseJob("500x25", 1, InputEvent.BUTTON1_DOWN_MASK),
+                HeadlessMain.parseJob("200x10@5,5", 2, InputEvent.BUTTON3_DOWN_MASK));
+
+        List<ClickEngine.Job> finished = HeadlessMain.runJobs(sink, config, jobs, 10_000);
+
+        assertEquals(25, finished.get(0).getClickCount());
+        assertEquals(10, finished.get(1).getClickCount());
+        assertFalse(finished.get(0).isCancelled());
+        assertEquals(35, sink.getPressCount());
+        assertEquals(35, sink.getReleaseCount());
+        assertEquals(35, config.getClickCount());
+    }
+
+    @Test
+    void durationCancelsUnlimitedJobs() {
+        CountingClickSink sink = new CountingClickSink();
+        List<ClickEngine.Job> finished = HeadlessMain.runJobs(sink, new ClickerConfig(),
+                List.of(HeadlessMain.parseJob("50", 1, InputEvent.BUTTON1_DOWN_MASK)), 200);
+
+        ClickEngine.Job job = finished.get(0);
+        assertTrue(job.isDone());
+        assertTrue(job.isCancelled());
+        assertTrue(job.getClickCount() > 0);
+        assertEquals(job.getClickCount(), sink.getPressCount());
+    }
+
+    @Test
+    void cancelledJobStopsClicking() throws Exception {
+        CountingClickSink sink = new CountingClickSink();
+        try (ClickEngine engine = new ClickEngine(sink)) {
+            //one click fires on submit, the next one is a second away
+            ClickEngine.Job job = engine.submit(ClickJob.atCursor("slow", InputEvent.BUTTON1_DOWN_MASK, 1, 0));
+            while (job.getClickCount() == 0) {
+                Thread.sleep(1);
+            }
+            job.cancel();
+            job.onCompletion().get(1, TimeUnit.SECONDS);
+
+            assertEquals(1, job.getClickCount());
+            assertEquals(1, sink.getPressCount());
+            assertEquals(0, engine.getActiveJobCount());
+        }
+    }
+
+    @Test
+    void jobsFinishedAfterCloseStillComplete() throws Exception {
+        CountingClickSink sink = new CountingClickSink();
+        ClickEngine engine = new ClickEngine(sink);
+        ClickEngine.Job job = engine.submit(ClickJob.atCursor("pending", InputEvent.BUTTON1_DOWN_MASK, 1, 0));
+        engine.close();
+
+        job.onCompletion().get(1, TimeUnit.SECONDS);
+        assertTrue(job.isCancelled());
+        assertThrows(IllegalStateException.class,
+                () -> engine.submit(ClickJob.atCursor("late", InputEvent.BUTTON1_DOWN_MASK, 1, 0)));
+    }
+}
@@ -0,0 +1,59 @@
+package com.croissant.CroissantClicker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickSchedulerTest {
+
+    private static final int CPS = 500;
+    private static final long PERIOD_NANOS = 1_000_000_000L / CPS;
+
+    //fires `clicks` ticks at CPS, stalling after every tick in `stalls`; returns the shortest interval between clicks
+    private static long shortestInterval(ClickScheduler scheduler, int clicks, long stallNanos, int... stalls) throws InterruptedException {
+        scheduler.reset(CPS);
+        long shortest = Long.MAX_VALUE;
+        long lastFired = 0;
+        for (int i = 0; i < clicks; i++) {
+            scheduler.awaitDeadline();
+            long fired = System.nanoTime();
+            if (lastFired != 0) shortest = Math.min(shortest, fired - lastFired);
+            lastFired = fired;
+            for (int stall : stalls) {
+                if (stall == i) LockSupport.parkNanos(stallNanos); //a preempted thread or a slow sink
+            }
+            scheduler.advance(CPS);
+        }
+        return shortest;
+    }
+
+    @Test
+    void shortStallIsCaughtUpWithoutBackToBackClicks() throws Exception {
+        ClickScheduler scheduler = new ClickScheduler();
+        //under two periods late: kept, and made up over the next clicks
+        long shortest = shortestInterval(scheduler, 200, PERIOD_NANOS * 3 / 2, 50, 120);
+
+        assertTrue(shortest > PERIOD_NANOS * 2 / 5, "clicks " + shortest + " ns apart");
+    }
+
+    @Test
+    void longStallDropsTheBacklog() throws Exception {
+        ClickScheduler scheduler = new ClickScheduler();
+        long shortest = shortestInterval(scheduler, 200, 20_000_000L, 50, 120);
+
+        assertTrue(scheduler.getResyncs() >= 2);
+        assertTrue(shortest > PERIOD_NANOS * 2 / 5, "clicks " + shortest + " ns apart");
+    }
+
+    @Test
+    void onScheduleClicksAreNotBehind() {
+        ClickScheduler scheduler = new ClickScheduler();
+        scheduler.reset(CPS);
+        long first = scheduler.getNextDeadline();
+
+        assertEquals(first + PERIOD_NANOS, scheduler.advance(CPS));
+        assertFalse(scheduler.isBehind());
+    }
+}
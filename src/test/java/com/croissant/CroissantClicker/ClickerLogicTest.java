@@ -0,0 +1,113 @@
+package com.croissant.CroissantClicker;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClickerLogicTest {
+
+    @Test
+    void stopReleasesAHeldButtonBeforeReturning() throws Exception {
+        CountingClickSink sink = new CountingClickSink();
+        ClickerConfig config = new ClickerConfig();
+        config.setCps(1);
+        config.setHoldMillis(ClickerConfig.HOLD_MILLIS_MAX); //the first click is held for most of a second
+        ClickerLogic logic = new ClickerLogic(config, sink);
+
+        logic.start();
+        while (sink.getPressCount() == 0) {
+            Thread.sleep(1);
+        }
+        long stopStart = System.nanoTime();
+        logic.stop();
+
+        assertEquals(1, sink.getReleaseCount());
+        assertTrue(System.nanoTime() - stopStart < 500_000_000L, "stop waited for the whole hold");
+    }
+
+    @Test
+    void enabledFollowsTheRunThroughTheClickLimit() throws Exception {
+        ClickerConfig config = new ClickerConfig();
+        config.setCps(ClickerConfig.CPS_MAX);
+        config.setClickLimit(1);
+        config.setClickLimitMode(true);
+        List<Object> transitions = new CopyOnWriteArrayList<>();
+        config.addPropertyChangeListener(evt -> {
+            if ("enabled".equals(evt.getPropertyName())) transitions.add(evt.getNewValue());
+        });
+        ClickerLogic logic = new ClickerLogic(config, new CountingClickSink());
+
+        for (int run = 0; run < 20; run++) {
+            logic.start();
+            logic.join(1000);
+        }
+        logic.stop(); //no run left: no transition
+
+        assertFalse(config.isEnabled());
+        assertEquals(40, transitions.size());
+        for (int i = 0; i < transitions.size(); i++) {
+            assertEquals(i % 2 == 0, transitions.get(i), "transition " + i);
+        }
+    }
+
+    @Test
+    void enabledListenersRunWithoutTheLogicLock() throws Exception {
+        ClickerConfig config = new ClickerConfig();
+        config.setClickLimit(1);
+        config.setClickLimitMode(true);
+        ClickerLogic logic = new ClickerLogic(config, new CountingClickSink());
+        List<Boolean> lockHeld = new CopyOnWriteArrayList<>();
+        config.addPropertyChangeListener(evt -> {
+            //a listener that needs the logic (or waits on a thread that does) would deadlock otherwise
+            if ("enabled".equals(evt.getPropertyName())) lockHeld.add(Thread.holdsLock(logic));
+        });
+
+        logic.start(); //stopped by the click limit
+        logic.join(1000);
+        logic.start();
+        logic.stop();
+
+        assertEquals(List.of(false, false, false, false), lockHeld);
+    }
+
+    @Test
+    void stopDoesNotWaitForeverOnAHungSink() throws Exception {
+        CountDownLatch pressed = new CountDownLatch(1);
+        CountDownLatch unblock = new CountDownLatch(1);
+        ClickSink hungSink = new ClickSink() {
+            @Override
+            public void press(int mouseButton) {
+                pressed.countDown();
+                try {
+                    unblock.await(); //never returns on its own, like a wedged display connection
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void release(int mouseButton) {
+            }
+
+            @Override
+            public String getName() {
+                return "hung";
+            }
+        };
+        ClickerLogic logic = new ClickerLogic(new ClickerConfig(), hungSink);
+
+        logic.start();
+        assertTrue(pressed.await(1, TimeUnit.SECONDS));
+        long stopStart = System.nanoTime();
+        logic.stop();
+        long stopNanos = System.nanoTime() - stopStart;
+        unblock.countDown();
+
+        assertTrue(stopNanos < 1_000_000_000L, "stop blocked for " + stopNanos / 1_000_000 + " ms");
+    }
+}
@@ -0,0 +1,41 @@
+package com.croissant.CroissantClicker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeadlessMainTest {
+
+    private static final Pattern SUMMARY = Pattern.compile("(\\d+) clicks in [\\d.]+ s \\(([\\d.]+) cps, target (\\d+)\\)");
+
+    @Test
+    void summaryReportsTheDeliveredRate() {
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(captured, true));
+        int exitCode;
+        try {
+            exitCode = HeadlessMain.run(new String[]{"--headless", "--sink", "counting", "--cps", "200", "--limit", "100"});
+        } finally {
+            System.setOut(out);
+        }
+
+        assertEquals(0, exitCode);
+        Matcher summary = SUMMARY.matcher(captured.toString());
+        assertTrue(summary.find(), captured.toString());
+        assertEquals(100, Long.parseLong(summary.group(1)));
+        //startup is not part of the rate: a paced run reports its target
+        assertEquals(200, Double.parseDouble(summary.group(2)), 10);
+    }
+
+    @Test
+    void profileWithoutNameIsRejected() {
+        assertEquals(2, HeadlessMain.run(new String[]{"--headless", "--sink", "counting", "--profile"}));
+        assertEquals(2, HeadlessMain.run(new String[]{"--headless", "--profile", "no-such-profile"}));
+    }
+}
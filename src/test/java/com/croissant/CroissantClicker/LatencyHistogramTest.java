@@ -0,0 +1,36 @@
+package com.croissant.CroissantClicker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void bucketsAreContiguous() {
+        for (int i = 0; i < LatencyHistogram.bucketIndex((1L << 40) - 1); i++) {
+            assertEquals(LatencyHistogram.bucketUpperBound(i) + 1, LatencyHistogram.bucketLowerBound(i + 1));
+            assertEquals(i, LatencyHistogram.bucketIndex(LatencyHistogram.bucketLowerBound(i)));
+        }
+    }
+
+    @Test
+    void bucketsAreAtMostThreePercentWide() {
+        for (long value = 64; value < (1L << 40); value = value * 9 / 8 + 1) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long width = LatencyHistogram.bucketUpperBound(index) - LatencyHistogram.bucketLowerBound(index) + 1;
+            assertTrue(width <= LatencyHistogram.bucketLowerBound(index) / 32, "bucket of " + value + " is " + width + " wide");
+        }
+    }
+
+    @Test
+    void percentilesAreWithinHalfABucket() {
+        for (long value = 1; value < 60_000_000_000L; value = value * 3 + 7) {
+            LatencyHistogram histogram = new LatencyHistogram("test");
+            histogram.record(value);
+            histogram.record(value * 2); //so max doesn't cap the reported midpoint
+            long reported = histogram.getPercentile(50);
+            assertEquals(value, reported, value * 0.016 + 1, "p50 of " + value);
+        }
+    }
+}
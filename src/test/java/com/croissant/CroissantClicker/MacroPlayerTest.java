@@ -0,0 +1,124 @@
+package com.croissant.CroissantClicker;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MacroPlayerTest {
+
+    private static final int LEFT = InputEvent.BUTTON1_DOWN_MASK;
+
+    //a move, three left clicks 1 ms apart, then a typed key
+    private static void writeClicks(String macroName) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(SaveDataManager.getMacroFile(macroName)))) {
+            output.writeInt(MacroRecorder.MAGIC);
+            output.writeByte(MacroRecorder.FORMAT_VERSION);
+            writeEvent(output, MacroRecorder.EVENT_MOVE, 0, MacroRecorder.zigzag(100), MacroRecorder.zigzag(-20));
+            for (int i = 0; i < 3; i++) {
+                writeEvent(output, MacroRecorder.EVENT_MOUSE_PRESS, 1_000_000, LEFT, 0);
+                writeEvent(output, MacroRecorder.EVENT_MOUSE_RELEASE, 100_000, LEFT, 0);
+            }
+            writeEvent(output, MacroRecorder.EVENT_KEY_PRESS, 1_000_000, KeyEvent.VK_A, 0);
+            writeEvent(output, MacroRecorder.EVENT_KEY_RELEASE, 100_000, KeyEvent.VK_A, 0);
+            output.writeByte(MacroRecorder.EVENT_END);
+        }
+    }
+
+    private static void writeEvent(DataOutputStream output, byte type, long deltaNanos, int first, int second) throws IOException {
+        output.writeByte(type);
+        MacroRecorder.writeVarLong(output, deltaNanos);
+        MacroRecorder.writeVarLong(output, first & 0xFFFFFFFFL);
+        if (type == MacroRecorder.EVENT_MOVE) MacroRecorder.writeVarLong(output, second & 0xFFFFFFFFL);
+    }
+
+    @Test
+    void replaysEveryRecordedClick() throws Exception {
+        writeClicks("three-clicks");
+        CountingClickSink sink = new CountingClickSink();
+        ClickerConfig config = new ClickerConfig();
+        MacroPlayer player = new MacroPlayer(sink, config);
+
+        player.start("three-clicks", 2, 1.0);
+        player.join();
+
+        assertEquals(6, sink.getPressCount());
+        assertEquals(6, sink.getReleaseCount());
+        assertEquals(6, config.getClickCount());
+        assertEquals(2 * 9, player.getLatenessHistogram().getCount());
+    }
+
+    @Test
+    void movesAndKeysReachRobotNextToAButtonOnlyBackend() throws Exception {
+        //how ClickSinks.create("auto") wraps uinput, with counting sinks standing in for uinput and Robot
+        writeClicks("split");
+        CountingClickSink buttons = new CountingClickSink();
+        CountingClickSink pointer = new CountingClickSink();
+        MacroPlayer player = new MacroPlayer(new SplitClickSink(buttons, () -> pointer), null);
+
+        player.start("split", 1, 1.0);
+        player.join();
+
+        assertEquals(3, buttons.getPressCount());
+        assertEquals(3, buttons.getReleaseCount());
+        assertEquals(0, pointer.getPressCount());
+        assertEquals(1, pointer.getMoveCount());
+        assertEquals(1, pointer.getKeyPressCount());
+        assertEquals(1, pointer.getKeyReleaseCount());
+    }
+
+    @Test
+    void splitSinkCreatesTheSecondBackendOnlyWhenNeeded() {
+        CountingClickSink buttons = new CountingClickSink();
+        int[] created = {0};
+        SplitClickSink sink = new SplitClickSink(buttons, () -> {
+            created[0]++;
+            return new CountingClickSink();
+        });
+
+        sink.press(LEFT);
+        sink.release(LEFT);
+        assertEquals(0, created[0]);
+        sink.moveTo(1, 2);
+        sink.keyPress(KeyEvent.VK_A);
+        assertEquals(1, created[0]);
+        assertEquals("counting", sink.getName());
+    }
+
+    @Test
+    void stoppingMidwayReleasesHeldButtons() throws Exception {
+        try (DataOutputStream output = new DataOutputStream(Files.newOutputStream(SaveDataManager.getMacroFile("long-hold")))) {
+            output.writeInt(MacroRecorder.MAGIC);
+            output.writeByte(MacroRecorder.FORMAT_VERSION);
+            writeEvent(output, MacroRecorder.EVENT_MOUSE_PRESS, 0, LEFT, 0);
+            writeEvent(output, MacroRecorder.EVENT_MOUSE_RELEASE, 60_000_000_000L, LEFT, 0);
+            output.writeByte(MacroRecorder.EVENT_END);
+        }
+        CountingClickSink sink = new CountingClickSink();
+        MacroPlayer player = new MacroPlayer(sink, null);
+
+        player.start("long-hold", 1, 1.0);
+        while (sink.getPressCount() == 0) {
+            Thread.sleep(1);
+        }
+        player.stop();
+        player.join();
+
+        assertEquals(1, sink.getReleaseCount());
+        assertFalse(player.isPlaying());
+    }
+
+    @Test
+    void headlessReplay() throws Exception {
+        writeClicks("headless");
+        assertEquals(0, HeadlessMain.run(new String[]{"--headless", "--sink", "counting", "--replay", "headless",
+                "--loops", "3", "--speed", "4"}));
+        assertEquals(1, HeadlessMain.run(new String[]{"--headless", "--sink", "counting", "--replay", "no-such-macro"}));
+        assertEquals(2, HeadlessMain.run(new String[]{"--headless", "--sink", "counting", "--replay", "headless", "--speed", "0"}));
+    }
+}
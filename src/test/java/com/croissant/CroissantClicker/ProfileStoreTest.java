@@ -0,0 +1,46 @@
+package com.croissant.CroissantClicker;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileStoreTest {
+
+    private static Path saveDirWithTemplate(String name, int cps) throws Exception {
+        Path saveDir = Files.createTempDirectory("profile-store");
+        ClickerConfig config = new ClickerConfig();
+        config.setCps(cps);
+        try (OutputStream output = Files.newOutputStream(saveDir.resolve("config." + name + ".properties"))) {
+            SaveDataManager.toProperties(config, name).store(output, null);
+        }
+        return saveDir;
+    }
+
+    @Test
+    void migrationImportsTheOldTemplates() throws Exception {
+        Path saveDir = saveDirWithTemplate("fast", 42);
+
+        try (ProfileStore store = ProfileStore.open(saveDir)) {
+            ClickerConfig loaded = new ClickerConfig();
+            assertTrue(store.load("fast", loaded));
+            assertEquals(42, loaded.getCps());
+        }
+        assertFalse(Files.exists(saveDir.resolve(ProfileStore.FILE_NAME + ".migrating")));
+    }
+
+    @Test
+    void interruptedMigrationIsRedone() throws Exception {
+        Path saveDir = saveDirWithTemplate("fast", 42);
+        //a crash mid-migration leaves only the staging file, never a partial profiles.db
+        Files.write(saveDir.resolve(ProfileStore.FILE_NAME + ".migrating"), new byte[]{'C', 'R', 'P', 'S', 0, 1});
+
+        try (ProfileStore store = ProfileStore.open(saveDir)) {
+            assertEquals(List.of("fast"), store.names());
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.croissant.CroissantClicker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateGovernorTest {
+
+    private static final int TARGET_CPS = 100;
+
+    //clicks completing every intervalNanos for durationNanos, as the click loop reports them
+    private static RateGovernor feed(long intervalNanos, long durationNanos, boolean behind) {
+        RateGovernor governor = new RateGovernor(true);
+        governor.reset(TARGET_CPS);
+        for (long t = 1; t < durationNanos; t += intervalNanos) {
+            governor.onClick(t, behind);
+        }
+        return governor;
+    }
+
+    @Test
+    void shortfallIsBoosted() {
+        RateGovernor governor = feed(11_000_000L, 800_000_000L, false);
+
+        assertTrue(governor.isAdjusting());
+        assertTrue(governor.adjust(10_000_000L) < 10_000_000L);
+    }
+
+    @Test
+    void lagTheSchedulerIsCatchingUpIsNotBoostedAgain() {
+        RateGovernor governor = feed(11_000_000L, 800_000_000L, true);
+
+        assertFalse(governor.isAdjusting());
+        assertEquals(10_000_000L, governor.adjust(10_000_000L));
+    }
+
+    @Test
+    void persistentLagIsSaturationWithoutWindingUp() {
+        RateGovernor governor = feed(11_000_000L, 2_000_000_000L, true);
+
+        assertTrue(governor.isSaturated());
+        assertEquals(1_000_000_000.0 / 11_000_000L, governor.getSustainableCps(), 1);
+    }
+}
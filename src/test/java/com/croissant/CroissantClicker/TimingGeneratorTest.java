@@ -0,0 +1,43 @@
+package com.croissant.CroissantClicker;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingGeneratorTest {
+
+    private static final long MEAN_NANOS = 1_000_000L;
+    private static final int SAMPLES = 100_000;
+
+    //mean of SAMPLES intervals drawn with the producer kept ahead (an underrun returns the mean and would hide bias)
+    private static double sampleMean(TimingMode mode, int jitter) throws InterruptedException {
+        ClickerConfig config = new ClickerConfig();
+        config.setTimingMode(mode);
+        config.setTimingJitter(jitter);
+        TimingGenerator timing = new TimingGenerator();
+        timing.configure(config.getSnapshot());
+
+        double sum = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            if (i % 1000 == 0) Thread.sleep(5); //let the producer refill the ring
+            sum += timing.nextIntervalNanos(MEAN_NANOS);
+        }
+        assertTrue(timing.getUnderruns() < SAMPLES / 100, "producer fell behind: " + timing.getUnderruns());
+        return sum / SAMPLES;
+    }
+
+    @Test
+    void gaussianMeanHoldsAtMaximumJitter() throws Exception {
+        assertEquals(MEAN_NANOS, sampleMean(TimingMode.GAUSSIAN, ClickerConfig.JITTER_MAX), MEAN_NANOS * 0.02);
+    }
+
+    @Test
+    void uniformMeanHoldsAtMaximumJitter() throws Exception {
+        assertEquals(MEAN_NANOS, sampleMean(TimingMode.UNIFORM, ClickerConfig.JITTER_MAX), MEAN_NANOS * 0.02);
+    }
+
+    @Test
+    void poissonMeanHolds() throws Exception {
+        assertEquals(MEAN_NANOS, sampleMean(TimingMode.POISSON, ClickerConfig.JITTER_MAX), MEAN_NANOS * 0.02);
+    }
+}